@@ -0,0 +1,123 @@
+package com.mypopsy.simpleratingbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure/layout throughput of {@link StarLayout}, replaying the sequence of calls made by
+ * {@code StarIndicator.onMeasure()} (along with its {@code StarRowDrawable}s) and
+ * {@code StarRatingBar.onLayout()}.
+ *
+ * Run with {@code ./gradlew :benchmark:jmh}, or {@code ./gradlew :benchmark:jmhCheckAllocations}
+ * to also fail on any per-operation allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StarLayoutBenchmark {
+
+    private static final int CENTER = 0x11;
+    private static final int PADDING = 12;
+    // xxhdpi, matching the 1080px wide screen
+    private static final float DENSITY = 2.625f;
+
+    @Param({"1", "5", "10", "20"})
+    public int numStars;
+
+    @Param({"EXACTLY", "AT_MOST", "UNSPECIFIED"})
+    public String widthMode;
+
+    @Param({"HORIZONTAL", "VERTICAL", "WRAP"})
+    public String orientation;
+
+    @Param({"0", "96"})
+    public int starSize;
+
+    private int mWidthSpec;
+    private int mHeightSpec;
+    private int mOrientation;
+    private float mStarPadding;
+    private float mMinStarSize;
+
+    @Setup
+    public void setup() {
+        final int mode;
+        switch (widthMode) {
+            case "EXACTLY": mode = StarLayout.EXACTLY; break;
+            case "AT_MOST": mode = StarLayout.AT_MOST; break;
+            default: mode = StarLayout.UNSPECIFIED; break;
+        }
+        switch (orientation) {
+            case "VERTICAL": mOrientation = StarLayout.VERTICAL; break;
+            case "WRAP": mOrientation = StarLayout.WRAP; break;
+            default: mOrientation = StarLayout.HORIZONTAL; break;
+        }
+        mWidthSpec = StarLayout.makeMeasureSpec(1080, mode);
+        mHeightSpec = StarLayout.makeMeasureSpec(1920, StarLayout.AT_MOST);
+        mStarPadding = 4;
+        mMinStarSize = StarLayout.MIN_WRAP_STAR_SIZE_DP * DENSITY;
+    }
+
+    @Benchmark
+    public long measure() {
+        final int suggestedWidth = StarLayout.getSize(mWidthSpec);
+        final int available = StarLayout.getMode(mWidthSpec) == StarLayout.UNSPECIFIED
+                ? Integer.MAX_VALUE : suggestedWidth - 2 * PADDING;
+        final int availableHeight = StarLayout.getMode(mHeightSpec) == StarLayout.UNSPECIFIED
+                ? Integer.MAX_VALUE : StarLayout.getSize(mHeightSpec) - 2 * PADDING;
+
+        final int columns = StarLayout.columns(mOrientation, numStars, starSize, mStarPadding, available, mMinStarSize);
+        final int lines = StarLayout.lines(numStars, columns);
+        final float resolved = StarLayout.resolveStarSize(starSize,
+                suggestedWidth - 2 * PADDING, availableHeight, columns, lines, mStarPadding);
+
+        final int size = Math.round(resolved);
+        final int divider = Math.round(mStarPadding);
+
+        // the star rows: intrinsic size, then their bounds fitting the stars
+        final int rowWidth = StarLayout.rowWidth(columns, size, divider);
+        final int rowHeight = StarLayout.rowWidth(lines, size, divider);
+        final int fitted = StarLayout.fitStarSize(rowWidth, rowHeight, columns, lines, divider);
+
+        final int width = StarLayout.resolveSize(mWidthSpec, rowWidth, 0);
+        final int height = StarLayout.resolveSize(mHeightSpec, rowHeight, 0);
+
+        return ((long) width << 32) | (height + fitted);
+    }
+
+    @Benchmark
+    public void layout(Blackhole bh) {
+        final int suggestedWidth = StarLayout.getSize(mWidthSpec);
+        final int available = StarLayout.getMode(mWidthSpec) == StarLayout.UNSPECIFIED
+                ? Integer.MAX_VALUE : suggestedWidth - 2 * PADDING;
+        final int availableHeight = StarLayout.getMode(mHeightSpec) == StarLayout.UNSPECIFIED
+                ? Integer.MAX_VALUE : StarLayout.getSize(mHeightSpec) - 2 * PADDING;
+
+        final int columns = StarLayout.columns(mOrientation, numStars, starSize, mStarPadding, available, mMinStarSize);
+        final int lines = StarLayout.lines(numStars, columns);
+        final float size = StarLayout.resolveStarSize(starSize,
+                suggestedWidth - 2 * PADDING, availableHeight, columns, lines, mStarPadding);
+
+        final int rowWidth = Math.round(StarLayout.rowWidth(columns, size, mStarPadding));
+        final int rowHeight = Math.round(StarLayout.rowWidth(lines, size, mStarPadding));
+        final int width = StarLayout.resolveSize(mWidthSpec, rowWidth, 0);
+        final int height = StarLayout.resolveSize(mHeightSpec, rowHeight, 0);
+
+        final int left = StarLayout.gravityLeft(CENTER, rowWidth, PADDING, width - PADDING);
+        final int top = StarLayout.gravityTop(CENTER, rowHeight, PADDING, height - PADDING);
+
+        for (int i = 0; i < numStars; i++) {
+            bh.consume(left + Math.round(StarLayout.starLeft(i, columns, size, mStarPadding)));
+            bh.consume(top + Math.round(StarLayout.starTop(i, columns, size, mStarPadding)));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Path;
+
+/**
+ * Minimal parser for SVG path data, supporting every command of the SVG 1.1 grammar
+ * (absolute and relative). Elliptical arcs are approximated with cubic Beziers.
+ */
+final class PathDataParser {
+
+    private final String mData;
+    private final Path mPath = new Path();
+    private int mPos;
+
+    // current point, start of the current sub-path, and last control point for S/T
+    private float mX, mY, mStartX, mStartY, mCtrlX, mCtrlY;
+
+    private PathDataParser(String data) {
+        mData = data;
+    }
+
+    static Path parse(String data) {
+        if (data == null) throw new IllegalArgumentException("null path data");
+        final PathDataParser parser = new PathDataParser(data);
+        parser.parse();
+        return parser.mPath;
+    }
+
+    private void parse() {
+        char command = 0;
+        char previous = 0;
+
+        while (true) {
+            skipSeparators();
+            if (mPos >= mData.length()) break;
+
+            final int start = mPos;
+            final char c = mData.charAt(mPos);
+            if (Character.isLetter(c)) {
+                command = c;
+                mPos++;
+            } else if (command == 0) {
+                throw error("expected a command");
+            } else if (command == 'M') {
+                command = 'L';  // implicit lineto after a moveto
+            } else if (command == 'm') {
+                command = 'l';
+            }
+
+            execute(command, previous);
+            // e.g. a number following a closepath, which takes no argument
+            if (mPos == start) throw error("expected a command");
+            previous = command;
+        }
+    }
+
+    private void execute(char command, char previous) {
+        final boolean relative = Character.isLowerCase(command);
+        final float ox = relative ? mX : 0;
+        final float oy = relative ? mY : 0;
+
+        switch (Character.toUpperCase(command)) {
+            case 'M': {
+                mX = mStartX = ox + number();
+                mY = mStartY = oy + number();
+                mPath.moveTo(mX, mY);
+                mCtrlX = mX; mCtrlY = mY;
+                break;
+            }
+            case 'L': {
+                lineTo(ox + number(), oy + number());
+                break;
+            }
+            case 'H': {
+                lineTo(ox + number(), mY);
+                break;
+            }
+            case 'V': {
+                lineTo(mX, oy + number());
+                break;
+            }
+            case 'C': {
+                final float x1 = ox + number(), y1 = oy + number();
+                final float x2 = ox + number(), y2 = oy + number();
+                cubicTo(x1, y1, x2, y2, ox + number(), oy + number());
+                break;
+            }
+            case 'S': {
+                final boolean smooth = "CcSs".indexOf(previous) >= 0;
+                final float x1 = smooth ? 2 * mX - mCtrlX : mX;
+                final float y1 = smooth ? 2 * mY - mCtrlY : mY;
+                final float x2 = ox + number(), y2 = oy + number();
+                cubicTo(x1, y1, x2, y2, ox + number(), oy + number());
+                break;
+            }
+            case 'Q': {
+                final float x1 = ox + number(), y1 = oy + number();
+                quadTo(x1, y1, ox + number(), oy + number());
+                break;
+            }
+            case 'T': {
+                final boolean smooth = "QqTt".indexOf(previous) >= 0;
+                final float x1 = smooth ? 2 * mX - mCtrlX : mX;
+                final float y1 = smooth ? 2 * mY - mCtrlY : mY;
+                quadTo(x1, y1, ox + number(), oy + number());
+                break;
+            }
+            case 'A': {
+                final float rx = number(), ry = number(), rotation = number();
+                final boolean largeArc = flag(), sweep = flag();
+                arcTo(rx, ry, rotation, largeArc, sweep, ox + number(), oy + number());
+                break;
+            }
+            case 'Z': {
+                mPath.close();
+                mX = mCtrlX = mStartX;
+                mY = mCtrlY = mStartY;
+                break;
+            }
+            default:
+                throw error("unknown command '" + command + "'");
+        }
+    }
+
+    private void lineTo(float x, float y) {
+        mPath.lineTo(x, y);
+        mX = mCtrlX = x;
+        mY = mCtrlY = y;
+    }
+
+    private void quadTo(float x1, float y1, float x, float y) {
+        mPath.quadTo(x1, y1, x, y);
+        mCtrlX = x1; mCtrlY = y1;
+        mX = x; mY = y;
+    }
+
+    private void cubicTo(float x1, float y1, float x2, float y2, float x, float y) {
+        mPath.cubicTo(x1, y1, x2, y2, x, y);
+        mCtrlX = x2; mCtrlY = y2;
+        mX = x; mY = y;
+    }
+
+    /**
+     * Endpoint to center parameterization (SVG 1.1 appendix F.6), then one cubic per
+     * quarter turn at most.
+     */
+    private void arcTo(float rx, float ry, float rotation, boolean largeArc, boolean sweep, float x, float y) {
+        final double x0 = mX, y0 = mY;
+        rx = Math.abs(rx);
+        ry = Math.abs(ry);
+
+        if (rx == 0 || ry == 0 || (x0 == x && y0 == y)) {
+            lineTo(x, y);
+            return;
+        }
+
+        final double phi = Math.toRadians(rotation);
+        final double cos = Math.cos(phi), sin = Math.sin(phi);
+
+        final double dx = (x0 - x) / 2, dy = (y0 - y) / 2;
+        final double x1 = cos * dx + sin * dy;
+        final double y1 = -sin * dx + cos * dy;
+
+        double rx2 = rx * rx, ry2 = ry * ry;
+        final double lambda = (x1 * x1) / rx2 + (y1 * y1) / ry2;
+        if (lambda > 1) {
+            rx *= Math.sqrt(lambda);
+            ry *= Math.sqrt(lambda);
+            rx2 = rx * rx;
+            ry2 = ry * ry;
+        }
+
+        final double num = rx2 * ry2 - rx2 * y1 * y1 - ry2 * x1 * x1;
+        final double den = rx2 * y1 * y1 + ry2 * x1 * x1;
+        double coef = Math.sqrt(Math.max(0, num / den));
+        if (largeArc == sweep) coef = -coef;
+
+        final double cx1 = coef * rx * y1 / ry;
+        final double cy1 = -coef * ry * x1 / rx;
+        final double cx = cos * cx1 - sin * cy1 + (x0 + x) / 2;
+        final double cy = sin * cx1 + cos * cy1 + (y0 + y) / 2;
+
+        final double theta = Math.atan2((y1 - cy1) / ry, (x1 - cx1) / rx);
+        double delta = Math.atan2((-y1 - cy1) / ry, (-x1 - cx1) / rx) - theta;
+        if (sweep && delta < 0) delta += 2 * Math.PI;
+        else if (!sweep && delta > 0) delta -= 2 * Math.PI;
+
+        final int segments = (int) Math.ceil(Math.abs(delta) / (Math.PI / 2) - 1e-6);
+        final double step = delta / segments;
+        final double t = 4.0 / 3.0 * Math.tan(step / 4);
+
+        double angle = theta;
+        for (int i = 0; i < segments; i++) {
+            final double cos1 = Math.cos(angle), sin1 = Math.sin(angle);
+            final double cos2 = Math.cos(angle + step), sin2 = Math.sin(angle + step);
+
+            final double ex1 = rx * (cos1 - t * sin1), ey1 = ry * (sin1 + t * cos1);
+            final double ex2 = rx * (cos2 + t * sin2), ey2 = ry * (sin2 - t * cos2);
+            final double ex = rx * cos2, ey = ry * sin2;
+
+            cubicTo((float) (cx + cos * ex1 - sin * ey1), (float) (cy + sin * ex1 + cos * ey1),
+                    (float) (cx + cos * ex2 - sin * ey2), (float) (cy + sin * ex2 + cos * ey2),
+                    (float) (cx + cos * ex - sin * ey), (float) (cy + sin * ex + cos * ey));
+            angle += step;
+        }
+
+        // land exactly on the requested endpoint
+        mX = x;
+        mY = y;
+    }
+
+    private void skipSeparators() {
+        while (mPos < mData.length()) {
+            final char c = mData.charAt(mPos);
+            if (c != ',' && !Character.isWhitespace(c)) break;
+            mPos++;
+        }
+    }
+
+    private boolean flag() {
+        skipSeparators();
+        if (mPos < mData.length()) {
+            final char c = mData.charAt(mPos);
+            if (c == '0' || c == '1') {
+                mPos++;
+                return c == '1';
+            }
+        }
+        throw error("expected an arc flag");
+    }
+
+    private float number() {
+        skipSeparators();
+
+        final int start = mPos;
+        final int length = mData.length();
+        boolean dot = false, exponent = false;
+
+        if (mPos < length && (mData.charAt(mPos) == '-' || mData.charAt(mPos) == '+')) mPos++;
+
+        while (mPos < length) {
+            final char c = mData.charAt(mPos);
+            if (c >= '0' && c <= '9') {
+                mPos++;
+            } else if (c == '.' && !dot && !exponent) {
+                dot = true;
+                mPos++;
+            } else if ((c == 'e' || c == 'E') && !exponent && mPos > start) {
+                exponent = true;
+                mPos++;
+                if (mPos < length && (mData.charAt(mPos) == '-' || mData.charAt(mPos) == '+')) mPos++;
+            } else {
+                break;
+            }
+        }
+
+        if (mPos == start) throw error("expected a number");
+
+        try {
+            return Float.parseFloat(mData.substring(start, mPos));
+        } catch (NumberFormatException e) {
+            throw error("malformed number");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at index " + mPos + " of \"" + mData + "\"");
+    }
+}
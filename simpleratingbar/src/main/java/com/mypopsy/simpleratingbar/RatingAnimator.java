@@ -0,0 +1,101 @@
+package com.mypopsy.simpleratingbar;
+
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+import android.view.animation.AnimationUtils;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+/**
+ * Allocation-free rating transition driven by the view's animation frames (Choreographer from
+ * API 16). Values are computed from the frame time, so frames dropped under load are simply
+ * skipped. The animation pauses while its view isn't shown.
+ */
+abstract class RatingAnimator implements Runnable {
+
+    private static final long DURATION = 300;
+    private static final Interpolator sInterpolator = new DecelerateInterpolator();
+
+    private final View mView;
+    private float mFrom, mTo;
+    private long mStartTime;
+    private boolean isRunning;
+    private boolean isScheduled;
+
+    RatingAnimator(View view) {
+        mView = view;
+    }
+
+    /**
+     * Called on every animation frame with the current value.
+     */
+    abstract void onUpdate(float value);
+
+    void start(float from, float to) {
+        mFrom = from;
+        mTo = to;
+        mStartTime = AnimationUtils.currentAnimationTimeMillis();
+        isRunning = true;
+        schedule();
+    }
+
+    boolean isRunning() {
+        return isRunning;
+    }
+
+    float getEndValue() {
+        return mTo;
+    }
+
+    void cancel() {
+        isRunning = false;
+        unschedule();
+    }
+
+    /**
+     * Jumps straight to the end value, if running.
+     */
+    void end() {
+        if (isRunning) {
+            cancel();
+            onUpdate(mTo);
+        }
+    }
+
+    /**
+     * Reschedules frames after the view has been shown again.
+     */
+    void resume() {
+        if (isRunning && !isScheduled) schedule();
+    }
+
+    @Override
+    public void run() {
+        isScheduled = false;
+        if (!isRunning) return;
+
+        // paused until resume(): no frame is produced for a view which isn't shown
+        if (!mView.isShown()) return;
+
+        final float fraction = Math.min(1f, (AnimationUtils.currentAnimationTimeMillis() - mStartTime) / (float) DURATION);
+        if (fraction >= 1f) isRunning = false;
+
+        onUpdate(mFrom + (mTo - mFrom) * sInterpolator.getInterpolation(fraction));
+
+        if (isRunning) schedule();
+    }
+
+    private void schedule() {
+        if (!isScheduled) {
+            isScheduled = true;
+            ViewCompat.postOnAnimation(mView, this);
+        }
+    }
+
+    private void unschedule() {
+        if (isScheduled) {
+            isScheduled = false;
+            mView.removeCallbacks(this);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.mypopsy.simpleratingbar;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.Gravity;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Resolved styled attributes of a {@link StarIndicator} or {@link StarRatingBar}.
+ *
+ * When the inflated XML carries no per-instance attribute, the result only depends on
+ * (theme, configuration, defStyleAttr, defStyleRes) and is cached, so that inflating many
+ * identical views resolves their attributes (and builds their {@link StarStyle}) only once.
+ */
+final class StarAttributes {
+
+    private static final int KIND_INDICATOR = 0;
+    private static final int KIND_RATING_BAR = 1;
+
+    private static final Map<Resources.Theme, Map<Key, StarAttributes>> sCache = new WeakHashMap<Resources.Theme, Map<Key, StarAttributes>>();
+
+    final int numStars;
+    final float rating;
+    final int gravity;
+    final int orientation;
+    final boolean rasterized;
+    final boolean flat;
+    final boolean split;
+    final float stepSize;
+    final StarStyle style;
+
+    private StarAttributes(int numStars, float rating, float stepSize, int gravity, int orientation,
+                           boolean rasterized, boolean flat, boolean split, StarStyle style) {
+        this.numStars = numStars;
+        this.rating = rating;
+        this.stepSize = stepSize;
+        this.gravity = gravity;
+        this.orientation = orientation;
+        this.rasterized = rasterized;
+        this.flat = flat;
+        this.split = split;
+        this.style = style;
+    }
+
+    static StarAttributes obtainIndicator(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        return obtain(context, attrs, R.styleable.StarIndicator, KIND_INDICATOR, defStyleAttr, defStyleRes);
+    }
+
+    static StarAttributes obtainRatingBar(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        return obtain(context, attrs, R.styleable.StarRatingBar, KIND_RATING_BAR, defStyleAttr, defStyleRes);
+    }
+
+    private static StarAttributes obtain(Context context, AttributeSet attrs, int[] styleable, int kind,
+                                         int defStyleAttr, int defStyleRes) {
+
+        if (hasInstanceAttributes(attrs, styleable)) {
+            return resolve(context, attrs, styleable, kind, defStyleAttr, defStyleRes);
+        }
+
+        final Resources.Theme theme = context.getTheme();
+        // activities handling configuration changes themselves keep their theme
+        final Key key = new Key(kind, defStyleAttr, defStyleRes, context.getResources());
+
+        synchronized (sCache) {
+            final Map<Key, StarAttributes> cache = sCache.get(theme);
+            final StarAttributes attributes = cache != null ? cache.get(key) : null;
+            if (attributes != null) return attributes;
+        }
+
+        final StarAttributes attributes = resolve(context, null, styleable, kind, defStyleAttr, defStyleRes);
+
+        synchronized (sCache) {
+            Map<Key, StarAttributes> cache = sCache.get(theme);
+            if (cache == null) sCache.put(theme, cache = new HashMap<Key, StarAttributes>());
+            cache.put(key, attributes);
+        }
+
+        return attributes;
+    }
+
+    private static boolean hasInstanceAttributes(AttributeSet attrs, int[] styleable) {
+        if (attrs == null) return false;
+        if (attrs.getStyleAttribute() != 0) return true;
+
+        for (int i = 0; i < attrs.getAttributeCount(); i++) {
+            final int resId = attrs.getAttributeNameResource(i);
+            for (int attr : styleable) {
+                if (attr == resId) return true;
+            }
+        }
+        return false;
+    }
+
+    private static StarAttributes resolve(Context context, AttributeSet attrs, int[] styleable, int kind,
+                                          int defStyleAttr, int defStyleRes) {
+
+        final TypedArray a = context.obtainStyledAttributes(attrs, styleable, defStyleAttr, defStyleRes);
+        final StarAttributes attributes;
+
+        if (kind == KIND_INDICATOR) {
+            final int[] fillColors = getColors(context, a, R.styleable.StarIndicator_srb_starFillColors);
+            attributes = new StarAttributes(
+                    a.getInt(R.styleable.StarIndicator_android_numStars, 5),
+                    a.getFloat(R.styleable.StarIndicator_android_rating, 0),
+                    1f,
+                    a.getInt(R.styleable.StarIndicator_android_gravity, Gravity.CENTER),
+                    a.getInt(R.styleable.StarIndicator_srb_orientation, StarLayout.HORIZONTAL),
+                    a.getBoolean(R.styleable.StarIndicator_srb_starRasterized, false),
+                    false,
+                    a.getBoolean(R.styleable.StarIndicator_srb_splitStars, false),
+                    new StarStyle.Builder()
+                            .setBackgroundColor(a.getColor(R.styleable.StarIndicator_srb_starBackgroundColor, Color.LTGRAY))
+                            .setBorderColor(a.getColor(R.styleable.StarIndicator_srb_starBorderColor, 0))
+                            .setFillColor(a.getColor(R.styleable.StarIndicator_srb_starFillColor, StarDrawable.DEFAULT_FILL_COLOR))
+                            .setCornerRadius(a.getDimensionPixelSize(R.styleable.StarIndicator_srb_starCornerRadius, 0))
+                            .setBorderWidth(a.getDimensionPixelSize(R.styleable.StarIndicator_srb_starBorderWidth, 0))
+                            .setSize(a.getDimensionPixelSize(R.styleable.StarIndicator_srb_starSize, 0))
+                            .setPadding(a.getDimensionPixelSize(R.styleable.StarIndicator_srb_starPadding, Math.round(toPixel(context, 1))))
+                            .setFillMode(fillColors != null ? a.getInt(R.styleable.StarIndicator_srb_starFillMode, StarStyle.FILL_SOLID)
+                                    : StarStyle.FILL_SOLID, fillColors)
+                            .setShape(getShape(a, R.styleable.StarIndicator_srb_starShape, R.styleable.StarIndicator_srb_starPathData))
+                            .setShadow(a.getDimension(R.styleable.StarIndicator_srb_starShadowRadius, 0),
+                                    a.getDimensionPixelOffset(R.styleable.StarIndicator_srb_starShadowDx, 0),
+                                    a.getDimensionPixelOffset(R.styleable.StarIndicator_srb_starShadowDy, 0),
+                                    a.getColor(R.styleable.StarIndicator_srb_starShadowColor, 0))
+                            .build());
+        } else {
+            final int[] fillColors = getColors(context, a, R.styleable.StarRatingBar_srb_starFillColors);
+            attributes = new StarAttributes(
+                    a.getInt(R.styleable.StarRatingBar_android_numStars, 5),
+                    a.getFloat(R.styleable.StarRatingBar_android_rating, 0),
+                    a.getFloat(R.styleable.StarRatingBar_android_stepSize, 1f),
+                    a.getInt(R.styleable.StarRatingBar_android_gravity, Gravity.CENTER),
+                    a.getInt(R.styleable.StarRatingBar_srb_orientation, StarLayout.HORIZONTAL),
+                    a.getBoolean(R.styleable.StarRatingBar_srb_starRasterized, false),
+                    a.getBoolean(R.styleable.StarRatingBar_srb_flat, false),
+                    false,
+                    new StarStyle.Builder()
+                            .setBackgroundColor(a.getColor(R.styleable.StarRatingBar_srb_starBackgroundColor, Color.LTGRAY))
+                            .setBorderColor(a.getColor(R.styleable.StarRatingBar_srb_starBorderColor, 0))
+                            .setFillColor(a.getColor(R.styleable.StarRatingBar_srb_starFillColor, StarDrawable.DEFAULT_FILL_COLOR))
+                            .setCornerRadius(a.getDimensionPixelSize(R.styleable.StarRatingBar_srb_starCornerRadius, 0))
+                            .setBorderWidth(a.getDimensionPixelSize(R.styleable.StarRatingBar_srb_starBorderWidth, 0))
+                            .setSize(a.getDimensionPixelSize(R.styleable.StarRatingBar_srb_starSize, Math.round(toPixel(context, 32))))
+                            .setPadding(a.getDimensionPixelSize(R.styleable.StarRatingBar_srb_starPadding, Math.round(toPixel(context, 4))))
+                            .setFillMode(fillColors != null ? a.getInt(R.styleable.StarRatingBar_srb_starFillMode, StarStyle.FILL_SOLID)
+                                    : StarStyle.FILL_SOLID, fillColors)
+                            .setShape(getShape(a, R.styleable.StarRatingBar_srb_starShape, R.styleable.StarRatingBar_srb_starPathData))
+                            .setShadow(a.getDimension(R.styleable.StarRatingBar_srb_starShadowRadius, 0),
+                                    a.getDimensionPixelOffset(R.styleable.StarRatingBar_srb_starShadowDx, 0),
+                                    a.getDimensionPixelOffset(R.styleable.StarRatingBar_srb_starShadowDy, 0),
+                                    a.getColor(R.styleable.StarRatingBar_srb_starShadowColor, 0))
+                            .build());
+        }
+
+        a.recycle();
+        return attributes;
+    }
+
+    private static StarShape getShape(TypedArray a, int shapeIndex, int pathDataIndex) {
+        final String pathData = a.getString(pathDataIndex);
+        if (pathData != null) return StarShape.fromPathData(pathData);
+        return StarShape.fromAttribute(a.getInt(shapeIndex, 0));
+    }
+
+    private static int[] getColors(Context context, TypedArray a, int index) {
+        final int id = a.getResourceId(index, 0);
+        if (id == 0) return null;
+
+        final TypedArray colors = context.getResources().obtainTypedArray(id);
+        final int[] result = new int[colors.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = colors.getColor(i, 0);
+        }
+        colors.recycle();
+        return result;
+    }
+
+    private static float toPixel(Context context, float dp) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, context.getResources().getDisplayMetrics());
+    }
+
+    private static final class Key {
+
+        final int kind;
+        final int defStyleAttr;
+        final int defStyleRes;
+
+        // the configuration fields colors and dimensions may be qualified by
+        final int densityDpi;
+        final float fontScale;
+        final int uiMode;
+        final int orientation;
+        final int screenWidthDp;
+        final int screenHeightDp;
+        final int smallestScreenWidthDp;
+
+        Key(int kind, int defStyleAttr, int defStyleRes, Resources resources) {
+            this.kind = kind;
+            this.defStyleAttr = defStyleAttr;
+            this.defStyleRes = defStyleRes;
+
+            final Configuration config = resources.getConfiguration();
+            densityDpi = resources.getDisplayMetrics().densityDpi;
+            fontScale = config.fontScale;
+            uiMode = config.uiMode;
+            orientation = config.orientation;
+            screenWidthDp = config.screenWidthDp;
+            screenHeightDp = config.screenHeightDp;
+            smallestScreenWidthDp = config.smallestScreenWidthDp;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            final Key key = (Key) o;
+            return kind == key.kind && defStyleAttr == key.defStyleAttr && defStyleRes == key.defStyleRes
+                    && densityDpi == key.densityDpi
+                    && Float.compare(fontScale, key.fontScale) == 0
+                    && uiMode == key.uiMode
+                    && orientation == key.orientation
+                    && screenWidthDp == key.screenWidthDp
+                    && screenHeightDp == key.screenHeightDp
+                    && smallestScreenWidthDp == key.smallestScreenWidthDp;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = kind;
+            result = 31 * result + defStyleAttr;
+            result = 31 * result + defStyleRes;
+            result = 31 * result + densityDpi;
+            result = 31 * result + Float.floatToIntBits(fontScale);
+            result = 31 * result + uiMode;
+            result = 31 * result + orientation;
+            result = 31 * result + screenWidthDp;
+            result = 31 * result + screenHeightDp;
+            result = 31 * result + smallestScreenWidthDp;
+            return result;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mypopsy.simpleratingbar;
 
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.ColorFilter;
@@ -8,6 +9,7 @@ import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
+import android.graphics.Shader;
 import android.graphics.drawable.Drawable;
 import android.view.Gravity;
 
@@ -24,35 +26,36 @@ class StarDrawable extends Drawable {
 
     private final Rect mTmpRect = new Rect();
     private final Rect mStarBounds = new Rect();
-    private final Path mStarPath = new Path();
-
-    private final Paint mBorderPaint;
-    private final Paint mFillPaint;
+    private StarKey mStarKey;
+    private Path mStarPath;
+    private Bitmap mFillMask;
+    private Bitmap mBorderMask;
+    private Bitmap mShadowMask;
+
+    private Paint mBorderPaint;
+    private Paint mFillPaint;
+    private Paint mShadowPaint;
     private final Paint mDebugPaint;
     private boolean isDirty = true;
+    private boolean hasSharedPaints;
 
     private int mBorderWidth;
     private int mFillColor;
     private int mBorderColor;
     private float mCornerRadius;
+    private StarShape mShape = StarShape.STAR;
+    private float mShadowRadius;
+    private int mShadowDx, mShadowDy;
+    private int mShadowColor;
+    private boolean isShadowDeferred;
+    private Shader[] mFillShaders;
+    private int mShaderIndex;
     private int mGravity = Gravity.CENTER;
     private int mSize;
+    private boolean isRasterized;
 
     StarDrawable() {
 
-        mBorderPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
-        mBorderPaint.setStyle(Paint.Style.STROKE);
-        mBorderPaint.setStrokeJoin(Paint.Join.ROUND);
-        mBorderPaint.setStrokeCap(Paint.Cap.ROUND);
-
-        mFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
-        mFillPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-        mFillPaint.setAntiAlias(true);
-        mFillPaint.setDither(true);
-        mFillPaint.setStrokeJoin(Paint.Join.ROUND);
-        mFillPaint.setStrokeCap(Paint.Cap.ROUND);
-
-
         if(DEBUG) {
             mDebugPaint = new Paint();
             mDebugPaint.setStyle(Paint.Style.STROKE);
@@ -61,13 +64,69 @@ class StarDrawable extends Drawable {
         }else
             mDebugPaint = null;
 
-        setBorderColor(0);
-        setFillColor(DEFAULT_FILL_COLOR);
+        setStyle(StarStyle.DEFAULT, true);
+    }
+
+    static Paint newBorderPaint() {
+        final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeJoin(Paint.Join.ROUND);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        return paint;
+    }
+
+    static Paint newFillPaint() {
+        final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
+        paint.setStyle(Paint.Style.FILL_AND_STROKE);
+        paint.setStrokeJoin(Paint.Join.ROUND);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        return paint;
+    }
+
+    static Paint newShadowPaint() {
+        return new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+    }
+
+    /**
+     * Shares the paints of {@code style} until any of the individual setters gets called.
+     */
+    void setStyle(StarStyle style, boolean filled) {
+        mFillPaint = filled ? style.fillPaint : style.backgroundPaint;
+        mBorderPaint = style.borderPaint;
+        mShadowPaint = style.shadowPaint;
+        mFillShaders = null;
+        hasSharedPaints = true;
+
+        mFillColor = filled ? style.getFillColor() : style.getBackgroundColor();
+        mBorderColor = style.getBorderColor();
+        mBorderWidth = style.getBorderWidth();
+        mCornerRadius = style.getCornerRadius();
+        mShape = style.getShape();
+
+        // only filled stars cast a shadow
+        mShadowRadius = filled ? style.getShadowRadius() : 0;
+        mShadowDx = style.getShadowDx();
+        mShadowDy = style.getShadowDy();
+        mShadowColor = style.getShadowColor();
+        mShadowMask = null;
+
+        isDirty = true;
+        invalidateSelf();
+    }
+
+    private void mutatePaints() {
+        if(hasSharedPaints) {
+            mFillPaint = new Paint(mFillPaint);
+            mBorderPaint = new Paint(mBorderPaint);
+            mShadowPaint = new Paint(mShadowPaint);
+            hasSharedPaints = false;
+        }
     }
 
     public void setSize(int size) {
         if(mSize != size) {
             mSize = size;
+            isDirty = true;
             invalidateSelf();
         }
     }
@@ -88,6 +147,15 @@ class StarDrawable extends Drawable {
         return getIntrinsicHeight();
     }
 
+    public void setShape(StarShape shape) {
+        if(shape == null) throw new IllegalArgumentException("shape == null");
+        if(!mShape.equals(shape)) {
+            mShape = shape;
+            isDirty = true;
+            invalidateSelf();
+        }
+    }
+
     public void setGravity(int gravity) {
         if(mGravity != gravity) {
             mGravity = gravity;
@@ -101,6 +169,7 @@ class StarDrawable extends Drawable {
     }
 
     public void setCornerRadius(float radius) {
+        mutatePaints();
         CornerPathEffect cornerPathEffect = new CornerPathEffect(mCornerRadius = radius);
         mBorderPaint.setPathEffect(cornerPathEffect);
         mFillPaint.setPathEffect(cornerPathEffect);
@@ -108,69 +177,197 @@ class StarDrawable extends Drawable {
         invalidateSelf();
     }
 
+    /**
+     * When rasterized, the star is rendered once per geometry into shared ALPHA_8 masks
+     * (see {@link StarMaskCache}) which are then drawn tinted instead of stroking paths.
+     */
+    public void setRasterized(boolean rasterized) {
+        if(isRasterized != rasterized) {
+            isRasterized = rasterized;
+            isDirty = true;
+            invalidateSelf();
+        }
+    }
+
     public void setBorderColor(int color) {
+        mutatePaints();
         mBorderPaint.setColor(mBorderColor = color);
         invalidateSelf();
     }
 
     public void setBorderWidth(int pixel) {
+        mutatePaints();
         mBorderPaint.setStrokeWidth(mBorderWidth = pixel);
         isDirty = true;
         invalidateSelf();
     }
 
+    /**
+     * @param radius the blur radius, or 0 for no shadow
+     * @see StarStyle.Builder#setShadow(float, int, int, int)
+     */
+    public void setShadow(float radius, int dx, int dy, int color) {
+        mutatePaints();
+        mShadowPaint.setColor(mShadowColor = color);
+        if(mShadowRadius != radius) {
+            mShadowRadius = radius;
+            mShadowMask = null;
+        }
+        mShadowDx = dx;
+        mShadowDy = dy;
+        invalidateSelf();
+    }
+
     public void setFillColor(int color) {
-        mFillPaint.setColor(mFillColor = color);
+        mutatePaints();
+        mFillColor = color;
+        if(mFillShaders == null) mFillPaint.setColor(color);
         invalidateSelf();
     }
 
+    /**
+     * Paints the fill with one of {@code shaders}, one per star of the row laid out in the star's
+     * own coordinates: see {@link #setShaderIndex(int)}.
+     */
+    void setFillShaders(Shader[] shaders) {
+        if(mFillShaders != shaders) {
+            mutatePaints();
+            mFillShaders = shaders;
+            mFillPaint.setShader(shaders != null ? shaders[0] : null);
+            // the shader provides the colors, the paint only keeps its alpha
+            mFillPaint.setColor(shaders != null ? Color.argb(mFillPaint.getAlpha(), 0, 0, 0) : mFillColor);
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Index of this star within its row, picking its fill shader so that gradients span every
+     * star of the row. Stars laid out on several lines are indexed as if on a single row, so that
+     * gradients follow the star order. Meant to be set right before each draw, hence doesn't
+     * invalidate.
+     */
+    void setShaderIndex(int index) {
+        mShaderIndex = index;
+    }
+
     @Override
     public void draw(Canvas canvas) {
+        if(!StarMetrics.sEnabled) {
+            drawStar(canvas);
+            return;
+        }
 
-        final boolean isFilled = Color.alpha(mFillColor) != 0;
-        final boolean hasBorder = mBorderWidth > 0 && Color.alpha(mBorderColor) != 0;
-
-        if(DEBUG) canvas.drawRect(0, 0, getBounds().width(), getBounds().height(), mDebugPaint);
+        final long start = StarMetrics.begin("StarDrawable#draw");
+        try {
+            drawStar(canvas);
+        } finally {
+            StarMetrics.end(StarMetrics.STAR_DRAW, start);
+        }
+    }
 
-        if(isFilled || hasBorder) {
+    /**
+     * Leaves the shadow out of {@link #draw(Canvas)}, for callers drawing the shadows of all
+     * their stars beforehand through {@link #drawShadow(Canvas)}. Otherwise the shadow of each
+     * star would paint over the previously drawn ones.
+     */
+    void setShadowDeferred(boolean deferred) {
+        isShadowDeferred = deferred;
+    }
 
-            if(isDirty) {
+    boolean hasShadow() {
+        return mShadowRadius > 0 && Color.alpha(mShadowColor) != 0;
+    }
 
-                final float scale = getIntrinsicHeight();
-                if(scale == 0) return;
+    /**
+     * @return how far the shadow reaches past the star bounds, offset included
+     */
+    int getShadowExtent() {
+        if(!hasShadow()) return 0;
+        return StarMaskCache.getShadowInset(mShadowRadius) + Math.max(Math.abs(mShadowDx), Math.abs(mShadowDy));
+    }
 
-                final float offset = (mBorderWidth < mCornerRadius ? mCornerRadius : mBorderWidth) * 0.5f;
+    /**
+     * Draws the shadow alone, at the same position {@link #draw(Canvas)} would.
+     */
+    void drawShadow(Canvas canvas) {
+        if(!hasShadow() || !isDrawn() || !prepare()) return;
+        drawShadowMask(canvas, mStarBounds.left, mStarBounds.top);
+    }
 
-                mStarPath.moveTo(0 + offset, .387f * scale);            // left tip
-                mStarPath.lineTo(.359f * scale, .356f * scale);
-                mStarPath.lineTo(.5f * scale, .025f * scale + offset);   // top tip
-                mStarPath.lineTo(.639f * scale, .356f * scale);
-                mStarPath.lineTo(1 * scale - offset, .387f * scale);     // right tip
-                mStarPath.lineTo(.726f * scale, .624f * scale);
-                mStarPath.lineTo(.807f * scale - offset, .974f * scale - offset); // bottom right tip
-                mStarPath.lineTo(.5f * scale, .788f * scale);
-                mStarPath.lineTo(.192f * scale + offset, .974f * scale - offset);  // bottom left tip
-                mStarPath.lineTo(.272f * scale, .624f * scale);
-                mStarPath.close();
+    private void drawShadowMask(Canvas canvas, int left, int top) {
+        if(mShadowMask == null) mShadowMask = StarMaskCache.getShadow(mStarKey, mShadowRadius);
+        final int inset = StarMaskCache.getShadowInset(mShadowRadius);
+        canvas.drawBitmap(mShadowMask, left + mShadowDx - inset, top + mShadowDy - inset, mShadowPaint);
+    }
 
-                final Rect bounds = getBounds();
-                mTmpRect.set(0, 0, bounds.width(), bounds.height());
-                Gravity.apply(mGravity, getIntrinsicWidth(), getIntrinsicHeight(), mTmpRect, mStarBounds);
+    private boolean isDrawn() {
+        return Color.alpha(mFillColor) != 0 || (mBorderWidth > 0 && Color.alpha(mBorderColor) != 0);
+    }
 
-                isDirty = false;
+    /**
+     * Rebuilds the star geometry if needed.
+     *
+     * @return false if there's nothing to draw
+     */
+    private boolean prepare() {
+        if(isDirty) {
+
+            final int size = getIntrinsicHeight();
+            if(size == 0) return false;
+
+            if(StarMetrics.sEnabled) {
+                final long start = StarMetrics.begin("StarDrawable#rebuild");
+                rebuild(size);
+                StarMetrics.end(StarMetrics.PATH_REBUILD, start);
+            }else {
+                rebuild(size);
             }
+        }
+        return true;
+    }
+
+    private void drawStar(Canvas canvas) {
+
+        final boolean isFilled = Color.alpha(mFillColor) != 0;
+        final boolean hasBorder = mBorderWidth > 0 && Color.alpha(mBorderColor) != 0;
+
+        if(DEBUG) canvas.drawRect(0, 0, getBounds().width(), getBounds().height(), mDebugPaint);
+
+        if(isFilled || hasBorder) {
+
+            if(!prepare()) return;
 
             if(mStarBounds.left > 0 || mStarBounds.top > 0) {
                 canvas.save();
                 canvas.translate(mStarBounds.left, mStarBounds.top);
             }
 
-            if (isFilled) {
-                canvas.drawPath(mStarPath, mFillPaint);
+            if(!isShadowDeferred && hasShadow()) drawShadowMask(canvas, 0, 0);
+
+            if(mFillShaders != null && isFilled) {
+                // shaders are built ahead of time, switching them allocates nothing
+                final Shader shader = mFillShaders[Math.min(mShaderIndex, mFillShaders.length - 1)];
+                if(mFillPaint.getShader() != shader) mFillPaint.setShader(shader);
             }
 
-            if (hasBorder) {
-                canvas.drawPath(mStarPath, mBorderPaint);
+            if(isRasterized) {
+                if (isFilled) {
+                    if(mFillMask == null) mFillMask = StarMaskCache.getFill(mStarKey);
+                    canvas.drawBitmap(mFillMask, 0, 0, mFillPaint);
+                }
+
+                if (hasBorder) {
+                    if(mBorderMask == null) mBorderMask = StarMaskCache.getBorder(mStarKey);
+                    canvas.drawBitmap(mBorderMask, 0, 0, mBorderPaint);
+                }
+            }else {
+                if (isFilled) {
+                    canvas.drawPath(mStarPath, mFillPaint);
+                }
+
+                if (hasBorder) {
+                    canvas.drawPath(mStarPath, mBorderPaint);
+                }
             }
 
             if(mStarBounds.left > 0 || mStarBounds.top > 0) {
@@ -179,17 +376,33 @@ class StarDrawable extends Drawable {
         }
     }
 
+    private void rebuild(int size) {
+        mStarKey = new StarKey(mShape, size, mBorderWidth, mCornerRadius);
+        mStarPath = isRasterized ? null : StarPathCache.get(mStarKey);
+        mFillMask = mBorderMask = mShadowMask = null;
+
+        final Rect bounds = getBounds();
+        mTmpRect.set(0, 0, bounds.width(), bounds.height());
+        Gravity.apply(mGravity, getIntrinsicWidth(), getIntrinsicHeight(), mTmpRect, mStarBounds);
+
+        isDirty = false;
+    }
+
     @Override
     public void setAlpha(int alpha) {
+        mutatePaints();
         mFillPaint.setAlpha(alpha);
         mBorderPaint.setAlpha(alpha);
+        mShadowPaint.setAlpha(alpha);
         invalidateSelf();
     }
 
     @Override
     public void setColorFilter(ColorFilter colorFilter) {
+        mutatePaints();
         mFillPaint.setColorFilter(colorFilter);
         mBorderPaint.setColorFilter(colorFilter);
+        mShadowPaint.setColorFilter(colorFilter);
         invalidateSelf();
     }
 
@@ -0,0 +1,82 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Shader;
+
+/**
+ * Applies the ramp and gradient fill modes of a {@link StarStyle} to a filled star. Gradient
+ * shaders, one per star, are only built once per row geometry and style, and neither drawing
+ * nor a new rating ever allocates.
+ */
+final class StarFill {
+
+    private final StarDrawable mDrawable;
+
+    // null while filled stars use a plain color
+    private StarStyle mStyle;
+    private boolean isGradient;
+    private Shader[] mShaders;
+    private int mNumStars;
+    private float mStarSize, mPadding;
+    private int mColor;
+
+    StarFill(StarDrawable drawable) {
+        mDrawable = drawable;
+    }
+
+    /**
+     * Must be called right after the style got applied to the drawable.
+     *
+     * @param canSpanRow whether the caller positions each star within the row through
+     *                   {@link StarDrawable#setShaderIndex}, otherwise gradients fall back to ramps
+     */
+    void setStyle(StarStyle style, boolean canSpanRow) {
+        mStyle = style.getFillMode() != StarStyle.FILL_SOLID ? style : null;
+        isGradient = mStyle != null && canSpanRow && style.getFillMode() == StarStyle.FILL_GRADIENT;
+        mShaders = null;
+        mColor = style.getFillColor();
+    }
+
+    /**
+     * Back to a plain fill color, e.g. once one got set explicitly.
+     */
+    void reset() {
+        mStyle = null;
+        isGradient = false;
+        mShaders = null;
+        mDrawable.setFillShaders(null);
+    }
+
+    /**
+     * Builds the gradient of each star, spanning all stars laid out on a single row whatever
+     * their layout.
+     */
+    void setRow(int numStars, float starSize, float padding) {
+        if(!isGradient || numStars <= 0 || starSize <= 0) return;
+
+        if(mShaders == null || mNumStars != numStars || mStarSize != starSize || mPadding != padding) {
+            final int width = Math.round(StarLayout.rowWidth(numStars, starSize, padding));
+            final Shader[] shaders = new Shader[numStars];
+            for(int i = 0; i < numStars; i++) {
+                shaders[i] = mStyle.createFillShader(width, i * (starSize + padding));
+            }
+
+            mNumStars = numStars;
+            mStarSize = starSize;
+            mPadding = padding;
+            mDrawable.setFillShaders(mShaders = shaders);
+        }
+    }
+
+    /**
+     * @return whether the color of every filled star changed
+     */
+    boolean setRating(float rating, int numStars) {
+        if(mStyle == null || isGradient || numStars <= 0) return false;
+
+        final int color = mStyle.getFillColorAt(rating / numStars);
+        if(color == mColor) return false;
+
+        mDrawable.setFillColor(mColor = color);
+        return true;
+    }
+}
@@ -0,0 +1,53 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Path;
+
+/**
+ * Normalized star outline: ten vertices laid out in a unit square, scaled to the
+ * requested size.
+ */
+final class StarGeometry {
+
+    private static final float[] UNIT_VERTICES = {
+            0f,    .387f,   // left tip
+            .359f, .356f,
+            .5f,   .025f,   // top tip
+            .639f, .356f,
+            1f,    .387f,   // right tip
+            .726f, .624f,
+            .807f, .974f,   // bottom right tip
+            .5f,   .788f,
+            .192f, .974f,   // bottom left tip
+            .272f, .624f,
+    };
+
+    // direction each vertex is pulled in by, so tips stay inside bounds once stroked/rounded
+    private static final float[] TIP_INSETS = {
+            1f,  0f,
+            0f,  0f,
+            0f,  1f,
+            0f,  0f,
+            -1f, 0f,
+            0f,  0f,
+            -1f, -1f,
+            0f,  0f,
+            1f,  -1f,
+            0f,  0f,
+    };
+
+    private StarGeometry() {}
+
+    /**
+     * Resets {@code path} to a star of the given size, tips pulled in by {@code inset} pixels.
+     */
+    static void build(Path path, float size, float inset) {
+        path.reset();
+        for (int i = 0; i < UNIT_VERTICES.length; i += 2) {
+            final float x = UNIT_VERTICES[i] * size + TIP_INSETS[i] * inset;
+            final float y = UNIT_VERTICES[i + 1] * size + TIP_INSETS[i + 1] * inset;
+            if (i == 0) path.moveTo(x, y);
+            else path.lineTo(x, y);
+        }
+        path.close();
+    }
+}
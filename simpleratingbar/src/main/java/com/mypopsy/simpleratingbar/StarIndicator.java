@@ -1,18 +1,12 @@
 package com.mypopsy.simpleratingbar;
 
 import android.content.Context;
-import android.content.res.Resources;
-import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Rect;
-import android.graphics.drawable.ClipDrawable;
 import android.graphics.drawable.LayerDrawable;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.util.AttributeSet;
-import android.util.TypedValue;
-import android.view.Gravity;
 import android.view.View;
 
 /**
@@ -24,21 +18,49 @@ public class StarIndicator extends View {
 
     private final StarDrawable mOutline = new StarDrawable();
     private final StarDrawable mFilled = new StarDrawable();
+    private final StarFill mFill = new StarFill(mFilled);
 
     private final Rect mVisualBounds = new Rect();
-    private final Rect mTmp = new Rect();
+    private final Rect mDirtyRect = new Rect();
+    private final Rect mTmpRect = new Rect();
 
-    private HorizontalStarDrawable mFilledStarsDrawable;
-    private HorizontalStarDrawable mOutlineStarsDrawable;
+    private StarRowDrawable mFilledStarsDrawable;
+    private StarRowDrawable mOutlineStarsDrawable;
 
-    private ClipDrawable mClipDrawable;
     private android.graphics.drawable.Drawable mForeground;
 
     private int mNumStars;
+    private int mOrientation = HORIZONTAL;
+    private boolean isSplit;
+    private float mDisplayedRating;
     private float mStarSize;
+    private float mResolvedStarSize;
     private int mGravity;
-    private boolean isDirty;
+    // offsets are unknown until the first measure and draw
+    private boolean isDirty = true;
     private float mStarPadding;
+    private int mStarsLeft, mStarsTop;
+
+    public static final int HORIZONTAL = StarLayout.HORIZONTAL;
+    public static final int VERTICAL = StarLayout.VERTICAL;
+    /** Rows wrapping at the available width, as many stars per row as fit. */
+    public static final int WRAP = StarLayout.WRAP;
+
+    private final RatingAnimator mAnimator = new RatingAnimator(this) {
+        @Override
+        void onUpdate(float value) {
+            applyRating(value);
+        }
+    };
+
+    /**
+     * Resolves the default attributes of this view for {@code context}'s theme and builds their
+     * star geometry ahead of time. Safe to call from a worker thread, e.g. during cold start.
+     */
+    public static void prewarm(Context context) {
+        final StarAttributes a = StarAttributes.obtainIndicator(context, null, R.attr.starIndicatorStyle, 0);
+        a.style.prewarm(a.style.getSize(), a.rasterized);
+    }
 
     public StarIndicator(Context context) {
         this(context, null);
@@ -55,28 +77,38 @@ public class StarIndicator extends View {
 
     private void init(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
 
-        mFilledStarsDrawable = new HorizontalStarDrawable(mFilled);
-        mOutlineStarsDrawable = new HorizontalStarDrawable(mOutline);
+        mFilledStarsDrawable = new StarRowDrawable(mFilled);
+        mOutlineStarsDrawable = new StarRowDrawable(mOutline);
 
-        mClipDrawable = new ClipDrawable(mFilledStarsDrawable, Gravity.LEFT, ClipDrawable.HORIZONTAL);
-        mForeground = new LayerDrawable(new android.graphics.drawable.Drawable[]{mOutlineStarsDrawable, mClipDrawable});
+        // filled stars are only drawn up to the rating, whatever the orientation
+        mFilledStarsDrawable.setFillLimit(0);
+        // shadows are drawn beneath the outline stars as well
+        mFilledStarsDrawable.setDrawShadows(false);
+        mForeground = new LayerDrawable(new android.graphics.drawable.Drawable[]{mOutlineStarsDrawable, mFilledStarsDrawable});
 
-        final TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.StarIndicator, defStyleAttr, defStyleRes);
+        final StarAttributes a = StarAttributes.obtainIndicator(context, attrs, defStyleAttr, defStyleRes);
 
-        setNumStars(a.getInt(R.styleable.StarIndicator_android_numStars, 5));
-        setRating(a.getFloat(R.styleable.StarIndicator_android_rating, 0));
-        setGravity(a.getInt(R.styleable.StarIndicator_android_gravity, Gravity.CENTER));
-        setStarPadding(a.getDimensionPixelSize(R.styleable.StarIndicator_srb_starPadding, Math.round(toPixel(1))));
-
-        setStarBackgroundColor(a.getColor(R.styleable.StarIndicator_srb_starBackgroundColor, Color.LTGRAY));
-        setStarBorderColor(a.getColor(R.styleable.StarIndicator_srb_starBorderColor, 0));
-        setStarFillColor(a.getColor(R.styleable.StarRatingBar_srb_starFillColor, StarDrawable.DEFAULT_FILL_COLOR));
-
-        setStarCornerRadius(a.getDimensionPixelSize(R.styleable.StarIndicator_srb_starCornerRadius, 0));
-        setStarBorderWidth(a.getDimensionPixelSize(R.styleable.StarIndicator_srb_starBorderWidth, 0));
-        setStarSize(a.getDimensionPixelSize(R.styleable.StarIndicator_srb_starSize, 0));
+        setNumStars(a.numStars);
+        setOrientation(a.orientation);
+        setRating(a.rating);
+        setGravity(a.gravity);
+        setStarStyle(a.style);
+        setStarRasterized(a.rasterized);
+        setSplitStars(a.split);
+    }
 
-        a.recycle();
+    /**
+     * Applies all of {@code style} at once, sharing its paints with every other star using it.
+     */
+    public void setStarStyle(StarStyle style) {
+        mOutline.setStyle(style, false);
+        mFilled.setStyle(style, true);
+        mFill.setStyle(style, true);
+        mFill.setRow(mNumStars, Math.round(mResolvedStarSize), Math.round(mStarPadding));
+        mFill.setRating(getDisplayedRating(), mNumStars);
+        setStarPadding(style.getPadding());
+        setStarSize(style.getSize());
+        invalidate();
     }
 
     public void setStarCornerRadius(float radius) {
@@ -85,6 +117,16 @@ public class StarIndicator extends View {
         invalidate();
     }
 
+    /**
+     * @throws IllegalArgumentException if {@code shape} is null
+     * @see StarShape#fromPathData(String)
+     */
+    public void setStarShape(StarShape shape) {
+        mOutline.setShape(shape);
+        mFilled.setShape(shape);
+        invalidate();
+    }
+
     public void setStarBorderColor(int color) {
         mOutline.setBorderColor(color);
         mFilled.setBorderColor(color);
@@ -97,7 +139,25 @@ public class StarIndicator extends View {
         invalidate();
     }
 
+    public void setStarRasterized(boolean rasterized) {
+        mOutline.setRasterized(rasterized);
+        mFilled.setRasterized(rasterized);
+        invalidate();
+    }
+
+    /**
+     * Draws a shadow beneath filled stars, or a glow when both offsets are 0. Mind that it
+     * extends past the star bounds.
+     *
+     * @see StarStyle.Builder#setShadow(float, int, int, int)
+     */
+    public void setStarShadow(float radius, int dx, int dy, int color) {
+        mFilled.setShadow(radius, dx, dy, color);
+        invalidate();
+    }
+
     public void setStarFillColor(int color) {
+        mFill.reset();
         mFilled.setFillColor(color);
         invalidate();
     }
@@ -107,9 +167,85 @@ public class StarIndicator extends View {
         invalidate();
     }
 
+    /**
+     * When split, outline stars are only drawn past the rating instead of beneath the filled ones,
+     * halving path draws and overdraw. Mind that a translucent fill no longer shows the outline
+     * stars through.
+     */
+    public void setSplitStars(boolean split) {
+        if(isSplit != split) {
+            isSplit = split;
+            mOutlineStarsDrawable.setFillStart(split ? mDisplayedRating : 0);
+            invalidate();
+        }
+    }
+
+    public boolean isSplitStars() {
+        return isSplit;
+    }
+
     public void setRating(float newRating) {
-        mClipDrawable.setLevel(Math.round((newRating * 10000f) / mNumStars));
-        invalidate();
+        setRating(newRating, false);
+    }
+
+    /**
+     * @param animate whether to animate from the current rating. Animations are frame-synced,
+     *                allocation-free, and skipped entirely if the view isn't shown.
+     */
+    public void setRating(float newRating, boolean animate) {
+        if(animate && isShown()) {
+            mAnimator.start(getDisplayedRating(), newRating);
+        }else {
+            mAnimator.cancel();
+            applyRating(newRating);
+        }
+    }
+
+    private void applyRating(float newRating) {
+        final float oldRating = mDisplayedRating;
+
+        if(oldRating != newRating) {
+            mDisplayedRating = newRating;
+            mFilledStarsDrawable.setFillLimit(newRating);
+            if(isSplit) mOutlineStarsDrawable.setFillStart(newRating);
+            // a color ramp repaints every filled star
+            if(mFill.setRating(newRating, mNumStars)) invalidate();
+            else invalidateRatingChange(oldRating, newRating);
+        }
+    }
+
+    /**
+     * Only invalidates the stars between the old and new rating, the remaining stars
+     * being unaffected by a rating change.
+     */
+    private void invalidateRatingChange(float oldRating, float newRating) {
+        if(isDirty) {
+            // offsets are only known once drawn
+            invalidate();
+            return;
+        }
+
+        final int first = Math.max(0, (int) Math.min(oldRating, newRating));
+        final int last = Math.min(mNumStars, (int) Math.ceil(Math.max(oldRating, newRating))) - 1;
+        if(last < first) return;
+
+        mFilledStarsDrawable.getStarBounds(first, mDirtyRect);
+        for(int i = first + 1; i <= last; i++) {
+            mFilledStarsDrawable.getStarBounds(i, mTmpRect);
+            mDirtyRect.union(mTmpRect);
+        }
+
+        if(mDirtyRect.isEmpty()) {
+            // stars not laid out yet
+            invalidate();
+            return;
+        }
+
+        // one extra pixel on each side to cover antialiasing, plus the shadows
+        final int extent = 1 + mFilled.getShadowExtent();
+        mDirtyRect.offset(mStarsLeft, mStarsTop);
+        mDirtyRect.inset(-extent, -extent);
+        invalidate(mDirtyRect);
     }
 
     public void setGravity(int gravity) {
@@ -121,7 +257,26 @@ public class StarIndicator extends View {
     }
 
     public float getRating() {
-        return (mClipDrawable.getLevel()*mNumStars)/10000f;
+        return mAnimator.isRunning() ? mAnimator.getEndValue() : getDisplayedRating();
+    }
+
+    private float getDisplayedRating() {
+        return mDisplayedRating;
+    }
+
+    /**
+     * @param orientation {@link #HORIZONTAL} (default), {@link #VERTICAL} or {@link #WRAP}.
+     *                    Auto-sized stars wrap at 24dp at least, then grow to fill each row.
+     */
+    public void setOrientation(int orientation) {
+        if(mOrientation != orientation) {
+            mOrientation = orientation;
+            requestLayout();
+        }
+    }
+
+    public int getOrientation() {
+        return mOrientation;
     }
 
     public void setNumStars(int numStars) {
@@ -147,79 +302,121 @@ public class StarIndicator extends View {
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if(!StarMetrics.sEnabled) {
+            measureStars(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
 
-        final int wmode = MeasureSpec.getMode(widthMeasureSpec);
-        final int hmode = MeasureSpec.getMode(heightMeasureSpec);
-        final int suggestedWidth = MeasureSpec.getSize(widthMeasureSpec);
-        final int suggestedHeight = MeasureSpec.getSize(heightMeasureSpec);
-
-        if(mStarSize <= 0) {
-            if(mNumStars > 0) {
-                mStarSize = suggestedWidth - getPaddingLeft() - getPaddingRight();
-                mStarSize -= mStarPadding*(mNumStars - 1);
-                mStarSize /= (float) mNumStars;
-            }else
-                mStarSize = 0;
+        final long start = StarMetrics.begin("StarIndicator#onMeasure");
+        try {
+            measureStars(widthMeasureSpec, heightMeasureSpec);
+        } finally {
+            StarMetrics.end(StarMetrics.MEASURE, start);
         }
+    }
 
-        mFilledStarsDrawable.setCount(mNumStars);
-        mOutlineStarsDrawable.setCount(mNumStars);
+    private void measureStars(int widthMeasureSpec, int heightMeasureSpec) {
 
-        mFilledStarsDrawable.setSize(Math.round(mStarSize));
-        mOutlineStarsDrawable.setSize(Math.round(mStarSize));
-        mFilledStarsDrawable.setDivider(Math.round(mStarPadding));
-        mOutlineStarsDrawable.setDivider(Math.round(mStarPadding));
+        final int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        final int verticalPadding = getPaddingTop() + getPaddingBottom();
 
-        mFilledStarsDrawable.setBounds(0, 0, mFilledStarsDrawable.getIntrinsicWidth(), mFilledStarsDrawable.getIntrinsicHeight());
-        mOutlineStarsDrawable.setBounds(0, 0, mOutlineStarsDrawable.getIntrinsicWidth(), mOutlineStarsDrawable.getIntrinsicHeight());
-        mClipDrawable.setBounds(0, 0, mFilledStarsDrawable.getIntrinsicWidth(), mFilledStarsDrawable.getIntrinsicHeight());
-        mForeground.setBounds(0, 0, mClipDrawable.getIntrinsicWidth(), mClipDrawable.getIntrinsicHeight());
+        final int suggestedWidth = MeasureSpec.getSize(widthMeasureSpec);
+        final int available = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED
+                ? Integer.MAX_VALUE : suggestedWidth - horizontalPadding;
+        final int availableHeight = MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.UNSPECIFIED
+                ? Integer.MAX_VALUE : MeasureSpec.getSize(heightMeasureSpec) - verticalPadding;
+        final float minStarSize = StarLayout.MIN_WRAP_STAR_SIZE_DP * getResources().getDisplayMetrics().density;
 
-        int width = mForeground.getBounds().width();
-        int height = mForeground.getBounds().height();
+        final int columns = StarLayout.columns(mOrientation, mNumStars, mStarSize, mStarPadding, available, minStarSize);
+        final int lines = StarLayout.lines(mNumStars, columns);
 
-        if(wmode == MeasureSpec.EXACTLY)
-            width = suggestedWidth;
-        else if(wmode == MeasureSpec.AT_MOST)
-            width = Math.max(getSuggestedMinimumWidth(), Math.min(suggestedWidth, width));
+        // the requested size is kept apart so that an auto size follows the available space
+        mResolvedStarSize = StarLayout.resolveStarSize(mStarSize,
+                suggestedWidth - horizontalPadding, availableHeight, columns, lines, mStarPadding);
 
-        if(hmode == MeasureSpec.EXACTLY)
-            height = suggestedHeight;
-        else if(hmode == MeasureSpec.AT_MOST)
-            height = Math.max(getSuggestedMinimumHeight(), Math.min(suggestedHeight, height));
+        final int size = Math.round(mResolvedStarSize);
+        final int divider = Math.round(mStarPadding);
 
+        // all of these are no-ops unless the geometry actually changed
+        mFilledStarsDrawable.setCount(mNumStars);
+        mOutlineStarsDrawable.setCount(mNumStars);
+        mFilledStarsDrawable.setColumns(columns);
+        mOutlineStarsDrawable.setColumns(columns);
+        mFilledStarsDrawable.setSize(size);
+        mOutlineStarsDrawable.setSize(size);
+        mFilledStarsDrawable.setDivider(divider);
+        mOutlineStarsDrawable.setDivider(divider);
 
+        final int rowWidth = mFilledStarsDrawable.getIntrinsicWidth();
+        final int rowHeight = mFilledStarsDrawable.getIntrinsicHeight();
 
-        mVisualBounds.set(getPaddingLeft(), getPaddingTop(), width - getPaddingRight(), height - getPaddingBottom());
+        mFilledStarsDrawable.setBounds(0, 0, rowWidth, rowHeight);
+        mOutlineStarsDrawable.setBounds(0, 0, rowWidth, rowHeight);
+        mFill.setRow(mNumStars, size, divider);
+        mForeground.setBounds(0, 0, rowWidth, rowHeight);
+
+        final int width = StarLayout.resolveSize(widthMeasureSpec, rowWidth, getSuggestedMinimumWidth());
+        final int height = StarLayout.resolveSize(heightMeasureSpec, rowHeight, getSuggestedMinimumHeight());
 
+        mVisualBounds.set(getPaddingLeft(), getPaddingTop(), width - getPaddingRight(), height - getPaddingBottom());
         setMeasuredDimension(width, height);
         isDirty = true;
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        if(!StarMetrics.sEnabled) {
+            drawStars(canvas);
+            return;
+        }
+
+        final long start = StarMetrics.begin("StarIndicator#onDraw");
+        try {
+            drawStars(canvas);
+        } finally {
+            StarMetrics.end(StarMetrics.DRAW, start);
+        }
+    }
+
+    private void drawStars(Canvas canvas) {
 
         if(isDirty) {
-            Gravity.apply(mGravity, mForeground.getIntrinsicWidth(),
-                    mForeground.getIntrinsicHeight(), mVisualBounds, mTmp);
+            mStarsLeft = StarLayout.gravityLeft(mGravity, mForeground.getIntrinsicWidth(),
+                    mVisualBounds.left, mVisualBounds.right);
+            mStarsTop = StarLayout.gravityTop(mGravity, mForeground.getIntrinsicHeight(),
+                    mVisualBounds.top, mVisualBounds.bottom);
             isDirty = false;
         }
 
-        if(mTmp.left != 0 || mTmp.top != 0) {
+        if(mStarsLeft != 0 || mStarsTop != 0) {
             canvas.save();
-            canvas.translate(mTmp.left, mTmp.top);
+            canvas.translate(mStarsLeft, mStarsTop);
         }
 
+        mFilledStarsDrawable.drawShadows(canvas);
         mForeground.draw(canvas);
 
-        if(mTmp.left != 0 || mTmp.top != 0) {
+        if(mStarsLeft != 0 || mStarsTop != 0) {
             canvas.restore();
         }
     }
 
-    private float toPixel(float dp){
-        Resources r = getResources();
-        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, r.getDisplayMetrics());
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAnimator.end();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        if(visibility == VISIBLE) mAnimator.resume();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if(visibility == VISIBLE) mAnimator.resume();
     }
 
     @Override
@@ -0,0 +1,40 @@
+package com.mypopsy.simpleratingbar;
+
+/**
+ * Immutable lookup key describing the geometry of a single star.
+ */
+final class StarKey {
+
+    final StarShape shape;
+    final int size;
+    final int borderWidth;
+    final float cornerRadius;
+
+    StarKey(StarShape shape, int size, int borderWidth, float cornerRadius) {
+        this.shape = shape;
+        this.size = size;
+        this.borderWidth = borderWidth;
+        this.cornerRadius = cornerRadius;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StarKey)) return false;
+
+        final StarKey key = (StarKey) o;
+        return shape.equals(key.shape)
+                && size == key.size
+                && borderWidth == key.borderWidth
+                && Float.compare(cornerRadius, key.cornerRadius) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = shape.hashCode();
+        result = 31 * result + size;
+        result = 31 * result + borderWidth;
+        result = 31 * result + Float.floatToIntBits(cornerRadius);
+        return result;
+    }
+}
@@ -0,0 +1,216 @@
+package com.mypopsy.simpleratingbar;
+
+/**
+ * Platform-independent star layout math shared by {@link StarIndicator}, {@link StarRatingBar}
+ * and {@link StarRowDrawable}. Only deals with primitives so it can be benchmarked and
+ * exercised on a plain JVM.
+ */
+final class StarLayout {
+
+    // mirrors android.view.View.MeasureSpec
+    static final int MODE_SHIFT = 30;
+    static final int MODE_MASK = 0x3 << MODE_SHIFT;
+    static final int UNSPECIFIED = 0;
+    static final int EXACTLY = 1 << MODE_SHIFT;
+    static final int AT_MOST = 2 << MODE_SHIFT;
+
+    // star arrangements: a single row, a single column, or rows wrapping at the available width
+    static final int HORIZONTAL = 0;
+    static final int VERTICAL = 1;
+    static final int WRAP = 2;
+
+    // smallest auto-sized star when wrapping, in dp
+    static final int MIN_WRAP_STAR_SIZE_DP = 24;
+
+    // mirrors android.view.Gravity
+    private static final int AXIS_PULL_BEFORE = 0x0002;
+    private static final int AXIS_PULL_AFTER = 0x0004;
+    private static final int AXIS_X_SHIFT = 0;
+    private static final int AXIS_Y_SHIFT = 4;
+
+    private StarLayout() {}
+
+    static int makeMeasureSpec(int size, int mode) {
+        return (size & ~MODE_MASK) | (mode & MODE_MASK);
+    }
+
+    static int getMode(int measureSpec) {
+        return measureSpec & MODE_MASK;
+    }
+
+    static int getSize(int measureSpec) {
+        return measureSpec & ~MODE_MASK;
+    }
+
+    /**
+     * @return {@code starSize} if positive, otherwise the size fitting {@code numStars} stars
+     * separated by {@code padding} into {@code available} pixels.
+     */
+    static float resolveStarSize(float starSize, int available, int numStars, float padding) {
+        if (starSize > 0) return starSize;
+        if (numStars <= 0) return 0;
+        return (available - padding * (numStars - 1)) / (float) numStars;
+    }
+
+    /**
+     * Same as {@link #resolveStarSize(float, int, int, float)}, an auto size also fitting
+     * {@code lines} lines into {@code height} pixels unless it is {@link Integer#MAX_VALUE}.
+     */
+    static float resolveStarSize(float starSize, int width, int height, int columns, int lines, float padding) {
+        final float size = resolveStarSize(starSize, width, columns, padding);
+        if (starSize > 0 || height == Integer.MAX_VALUE || lines <= 0) return size;
+        return Math.max(0, Math.min(size, (height - padding * (lines - 1)) / (float) lines));
+    }
+
+    /**
+     * @param minStarSize the smallest auto size when wrapping: as many stars as fit at that size go
+     *                    on each line, the auto size then growing to fill the line
+     * @return the number of stars per line
+     */
+    static int columns(int orientation, int numStars, float starSize, float padding, int available,
+                       float minStarSize) {
+        if (numStars <= 0) return 1;
+
+        switch (orientation) {
+            case VERTICAL:
+                return 1;
+            case WRAP:
+                final float size = starSize > 0 ? starSize : minStarSize;
+                if (size <= 0) return numStars;
+                final int columns = (int) ((available + padding) / (size + padding));
+                return Math.max(1, Math.min(numStars, columns));
+            default:
+                return numStars;
+        }
+    }
+
+    static int lines(int numStars, int columns) {
+        if (numStars <= 0 || columns <= 0) return 0;
+        return (numStars + columns - 1) / columns;
+    }
+
+    /**
+     * @return the size fitting {@code columns} x {@code lines} stars separated by {@code divider}
+     * into width x height.
+     */
+    static int fitStarSize(int width, int height, int columns, int lines, int divider) {
+        if (columns <= 0 || lines <= 0) return 0;
+        return Math.max(0, Math.min((width - divider * (columns - 1)) / columns,
+                (height - divider * (lines - 1)) / lines));
+    }
+
+    static float starLeft(int index, int columns, float starSize, float padding) {
+        return (index % columns) * (starSize + padding);
+    }
+
+    static float starTop(int index, int columns, float starSize, float padding) {
+        return (index / columns) * (starSize + padding);
+    }
+
+    static float rowWidth(int count, float starSize, float padding) {
+        return count * starSize + padding * (count - 1);
+    }
+
+    static int rowWidth(int count, int starSize, int divider) {
+        return starSize * count + divider * (count - 1);
+    }
+
+    /**
+     * Hit-tests a row of stars.
+     *
+     * @param x position relative to the left edge of the first star
+     * @return the rating under {@code x}, rounded up to a multiple of {@code step} and clamped
+     * to [0, numStars]. Padding between two stars counts as part of the star on its left.
+     */
+    static float ratingAt(float x, int numStars, float starSize, float padding, float step) {
+        if (numStars <= 0 || starSize <= 0 || x <= 0) return 0;
+
+        final float pitch = starSize + padding;
+        final int index = Math.min(numStars - 1, (int) (x / pitch));
+        final float fraction = Math.min(1f, (x - index * pitch) / starSize);
+        final float rating = index + fraction;
+
+        if (step <= 0) return rating;
+
+        // tolerate float noise so that e.g. 2.0000002 doesn't round up to the next step
+        final float steps = (float) Math.ceil(rating / step - 1e-4f);
+        return Math.min(numStars, steps * step);
+    }
+
+    /**
+     * Hit-tests stars laid out on lines of {@code columns} stars: the line under {@code y} is
+     * hit-tested like a single row, all stars of previous lines counting as filled.
+     *
+     * @param x position relative to the left edge of the first column
+     * @param y position relative to the top edge of the first line
+     */
+    static float ratingAt(float x, float y, int numStars, int columns, float starSize, float padding, float step) {
+        if (numStars <= 0 || columns <= 0 || starSize <= 0) return 0;
+        if (columns >= numStars) return ratingAt(x, numStars, starSize, padding, step);
+
+        final int line = y <= 0 ? 0 : Math.min(lines(numStars, columns) - 1, (int) (y / (starSize + padding)));
+        final int first = line * columns;
+
+        return first + ratingAt(x, Math.min(columns, numStars - first), starSize, padding, step);
+    }
+
+    /**
+     * @return the index of the star under (x, y), relative to the top left corner of the first
+     * star, or -1 if none. Padding counts as part of the star on its left, or above it.
+     */
+    static int starIndexAt(float x, float y, int numStars, int columns, float starSize, float padding) {
+        if (numStars <= 0 || columns <= 0 || x < 0 || y < 0) return -1;
+
+        final int lines = lines(numStars, columns);
+        if (x > rowWidth(columns, starSize, padding) || y > rowWidth(lines, starSize, padding)) return -1;
+
+        final float pitch = starSize + padding;
+        final int column = Math.min(columns - 1, (int) (x / pitch));
+        final int line = Math.min(lines - 1, (int) (y / pitch));
+        final int index = line * columns + column;
+
+        return index < numStars ? index : -1;
+    }
+
+    /**
+     * Same contract as {@code View.resolveSize()}, minus the state bits.
+     */
+    static int resolveSize(int measureSpec, int desired, int minimum) {
+        final int size = getSize(measureSpec);
+        switch (getMode(measureSpec)) {
+            case EXACTLY:
+                return size;
+            case AT_MOST:
+                return Math.max(minimum, Math.min(size, desired));
+            default:
+                return desired;
+        }
+    }
+
+    /**
+     * @return the left edge of {@code width} pixels positioned by {@code gravity} within [left, right].
+     */
+    static int gravityLeft(int gravity, int width, int left, int right) {
+        return applyGravity(gravity >> AXIS_X_SHIFT, width, left, right);
+    }
+
+    /**
+     * @return the top edge of {@code height} pixels positioned by {@code gravity} within [top, bottom].
+     */
+    static int gravityTop(int gravity, int height, int top, int bottom) {
+        return applyGravity(gravity >> AXIS_Y_SHIFT, height, top, bottom);
+    }
+
+    private static int applyGravity(int axisGravity, int size, int start, int end) {
+        switch (axisGravity & (AXIS_PULL_BEFORE | AXIS_PULL_AFTER)) {
+            case AXIS_PULL_BEFORE:
+                return start;
+            case AXIS_PULL_AFTER:
+                return end - size;
+            case AXIS_PULL_BEFORE | AXIS_PULL_AFTER:
+                return start;
+            default:
+                return start + (end - start - size) / 2;
+        }
+    }
+}
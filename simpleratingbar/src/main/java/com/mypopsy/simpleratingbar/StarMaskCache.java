@@ -0,0 +1,135 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.BlurMaskFilter;
+import android.graphics.Canvas;
+import android.graphics.CornerPathEffect;
+import android.graphics.Paint;
+import android.util.LruCache;
+
+/**
+ * Process-wide cache of {@link Bitmap.Config#ALPHA_8 ALPHA_8} star masks, shared by every
+ * rasterized {@link StarDrawable} of the same geometry. Total size is capped in bytes.
+ *
+ * Shadows are blurred once per geometry and radius, their color being applied at draw time.
+ */
+public final class StarMaskCache {
+
+    private static final int MAX_BYTES = 1024 * 1024;
+
+    private static final int KIND_FILL = 0;
+    private static final int KIND_BORDER = 1;
+    private static final int KIND_SHADOW = 2;
+
+    private static final LruCache<Key, Bitmap> sCache = new LruCache<Key, Bitmap>(MAX_BYTES) {
+        @Override
+        protected Bitmap create(Key key) {
+            return createMask(key);
+        }
+
+        @Override
+        protected int sizeOf(Key key, Bitmap mask) {
+            return mask.getByteCount();
+        }
+    };
+
+    private StarMaskCache() {}
+
+    static Bitmap getFill(StarKey star) {
+        return sCache.get(new Key(star, KIND_FILL, 0));
+    }
+
+    static Bitmap getBorder(StarKey star) {
+        return sCache.get(new Key(star, KIND_BORDER, 0));
+    }
+
+    /**
+     * @return the star silhouette blurred by {@code radius}, extended on each side by
+     * {@link #getShadowInset(float)} pixels.
+     */
+    static Bitmap getShadow(StarKey star, float radius) {
+        return sCache.get(new Key(star, KIND_SHADOW, radius));
+    }
+
+    /**
+     * A normal blur fades out up to about twice its radius past the silhouette.
+     */
+    static int getShadowInset(float radius) {
+        return (int) Math.ceil(2 * radius);
+    }
+
+    public static int hitCount() {
+        return sCache.hitCount();
+    }
+
+    public static int missCount() {
+        return sCache.missCount();
+    }
+
+    public static int size() {
+        return sCache.size();
+    }
+
+    public static void clear() {
+        sCache.evictAll();
+    }
+
+    private static Bitmap createMask(Key key) {
+        if (!StarMetrics.sEnabled) return rasterize(key);
+
+        final long start = StarMetrics.begin("StarMaskCache#rasterize");
+        try {
+            return rasterize(key);
+        } finally {
+            StarMetrics.end(StarMetrics.PATH_REBUILD, start);
+        }
+    }
+
+    private static Bitmap rasterize(Key key) {
+        final StarKey star = key.star;
+        final int inset = key.kind == KIND_SHADOW ? getShadowInset(key.radius) : 0;
+        final int size = star.size + 2 * inset;
+        final Bitmap mask = Bitmap.createBitmap(size, size, Bitmap.Config.ALPHA_8);
+        final Paint paint = key.kind == KIND_BORDER ? StarDrawable.newBorderPaint() : StarDrawable.newFillPaint();
+
+        // the shadow follows the whole silhouette, border included
+        if (key.kind != KIND_FILL) paint.setStrokeWidth(star.borderWidth);
+        if (key.kind == KIND_SHADOW) paint.setMaskFilter(new BlurMaskFilter(key.radius, BlurMaskFilter.Blur.NORMAL));
+        paint.setPathEffect(new CornerPathEffect(star.cornerRadius));
+
+        final Canvas canvas = new Canvas(mask);
+        canvas.translate(inset, inset);
+        canvas.drawPath(StarPathCache.get(star), paint);
+        return mask;
+    }
+
+    private static final class Key {
+
+        final StarKey star;
+        final int kind;
+        final float radius;
+
+        Key(StarKey star, int kind, float radius) {
+            this.star = star;
+            this.kind = kind;
+            this.radius = radius;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            final Key key = (Key) o;
+            return kind == key.kind && Float.compare(radius, key.radius) == 0 && star.equals(key.star);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = star.hashCode();
+            result = 31 * result + kind;
+            result = 31 * result + Float.floatToIntBits(radius);
+            return result;
+        }
+    }
+}
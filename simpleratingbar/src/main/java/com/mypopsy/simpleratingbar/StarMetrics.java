@@ -0,0 +1,95 @@
+package com.mypopsy.simpleratingbar;
+
+import android.support.v4.os.TraceCompat;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Opt-in rendering instrumentation. When enabled, measure, layout and draw passes of the
+ * rating widgets are counted, timed, wrapped in {@link android.os.Trace} sections and reported
+ * to registered {@link Listener}s. When disabled (the default) hot paths only read a static flag.
+ */
+public final class StarMetrics {
+
+    public static final int MEASURE = 0;
+    public static final int LAYOUT = 1;
+    public static final int DRAW = 2;
+    public static final int STAR_DRAW = 3;
+    /** A star outline rebuilt, or a star mask rasterized. */
+    public static final int PATH_REBUILD = 4;
+    public static final int ROW_DRAW = 5;
+
+    private static final int EVENT_COUNT = 6;
+
+    public interface Listener {
+        /**
+         * Called on the thread that performed the work, right after it completed.
+         *
+         * @param event one of {@link #MEASURE}, {@link #LAYOUT}, {@link #DRAW},
+         *              {@link #STAR_DRAW}, {@link #PATH_REBUILD} or {@link #ROW_DRAW}
+         * @param durationNanos time spent in the pass
+         */
+        void onEvent(int event, long durationNanos);
+    }
+
+    static volatile boolean sEnabled;
+
+    private static final AtomicLongArray sCounts = new AtomicLongArray(EVENT_COUNT);
+    private static final AtomicLongArray sDurations = new AtomicLongArray(EVENT_COUNT);
+    private static final CopyOnWriteArrayList<Listener> sListeners = new CopyOnWriteArrayList<Listener>();
+
+    private StarMetrics() {}
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    public static void addListener(Listener listener) {
+        sListeners.addIfAbsent(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        sListeners.remove(listener);
+    }
+
+    public static long getCount(int event) {
+        return sCounts.get(event);
+    }
+
+    public static long getDurationNanos(int event) {
+        return sDurations.get(event);
+    }
+
+    public static void reset() {
+        for(int i = 0; i < EVENT_COUNT; i++) {
+            sCounts.set(i, 0);
+            sDurations.set(i, 0);
+        }
+    }
+
+    /**
+     * Opens a trace section and returns the start timestamp to hand back to {@link #end}.
+     * Callers must check {@link #sEnabled} first.
+     */
+    static long begin(String section) {
+        TraceCompat.beginSection(section);
+        return System.nanoTime();
+    }
+
+    static void end(int event, long start) {
+        final long duration = System.nanoTime() - start;
+        TraceCompat.endSection();
+
+        sCounts.incrementAndGet(event);
+        sDurations.addAndGet(event, duration);
+
+        for(Listener listener : sListeners) {
+            listener.onEvent(event, duration);
+        }
+    }
+}
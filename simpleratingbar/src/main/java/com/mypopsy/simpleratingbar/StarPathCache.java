@@ -0,0 +1,47 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Path;
+import android.util.LruCache;
+
+/**
+ * Process-wide cache of star outlines keyed by shape, size, border width and corner radius, so
+ * identically styled stars share a single {@link Path}. Cached paths must never be mutated.
+ */
+public final class StarPathCache {
+
+    private static final int MAX_ENTRIES = 32;
+
+    private static final LruCache<StarKey, Path> sCache = new LruCache<StarKey, Path>(MAX_ENTRIES) {
+        @Override
+        protected Path create(StarKey key) {
+            return createPath(key);
+        }
+    };
+
+    private StarPathCache() {}
+
+    static Path get(StarKey key) {
+        return sCache.get(key);
+    }
+
+    public static int hitCount() {
+        return sCache.hitCount();
+    }
+
+    public static int missCount() {
+        return sCache.missCount();
+    }
+
+    public static void clear() {
+        sCache.evictAll();
+    }
+
+    private static Path createPath(StarKey key) {
+        final Path path = new Path();
+        final float inset = (key.borderWidth < key.cornerRadius ? key.cornerRadius : key.borderWidth) * 0.5f;
+
+        key.shape.build(path, key.size, inset);
+
+        return path;
+    }
+}
@@ -1,19 +1,31 @@
 package com.mypopsy.simpleratingbar;
 
 import android.content.Context;
-import android.content.res.Resources;
-import android.content.res.TypedArray;
-import android.graphics.Color;
+import android.graphics.Canvas;
 import android.graphics.Rect;
+import android.graphics.drawable.ClipDrawable;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.LayerDrawable;
+import android.os.Bundle;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
 import android.util.AttributeSet;
-import android.util.TypedValue;
-import android.view.Gravity;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
+import android.view.Gravity;
+import android.view.SoundEffectConstants;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.accessibility.AccessibilityEvent;
 import android.widget.ImageView;
+import android.widget.RatingBar;
+
+import java.util.List;
 
 /**
  * Created by Cerrato Renaud <renaud.cerrato@gmail.com>
@@ -24,28 +36,66 @@ public class StarRatingBar extends ViewGroup {
 
     private final StarDrawable mOutline = new StarDrawable();
     private final StarDrawable mFilled = new StarDrawable();
+    private final StarFill mFill = new StarFill(mFilled);
+    private final ClipDrawable mPartialClip = new ClipDrawable(mFilled, Gravity.LEFT, ClipDrawable.HORIZONTAL);
+    private final Drawable mPartial = new LayerDrawable(new Drawable[]{mOutline, mPartialClip});
     private final Rect mBounds = new Rect();
-    private final Rect mTmp = new Rect();
+    private final Rect mTmpRect = new Rect();
+    private final Rect mClipBounds = new Rect();
     private int mNumStars;
+    private int mOrientation = HORIZONTAL;
+    private int mColumns = 1;
     private float mStarSize;
+    private float mResolvedStarSize;
     private float mStarPadding;
-    private int mRating;
+    private int mStarsLeft, mStarsTop;
+    private float mRating;
+    private float mDisplayedRating;
+    private float mStepSize = 1f;
     private LayoutInflater mLayoutInflater;
+    private StarViewPool mStarPool;
     private OnRatingBarChangeListener mListener;
+    private OnFloatRatingBarChangeListener mFloatListener;
     private int mGravity;
+    private boolean isFlat;
 
+    private final int mTouchSlop;
+    private float mTouchDownX, mTouchDownY;
+    private float mTouchDownRating;
+    private boolean isDragging;
+    private View mPressedStar;
 
-    public interface OnRatingBarChangeListener {
-        void onRatingChanged(StarRatingBar ratingBar, int rating, boolean fromUser);
-    }
+    private final AccessibilityHelper mAccessibilityHelper = new AccessibilityHelper();
 
-    private View.OnClickListener mClickListener = new View.OnClickListener() {
+    public static final int HORIZONTAL = StarLayout.HORIZONTAL;
+    public static final int VERTICAL = StarLayout.VERTICAL;
+    /** Rows wrapping at the available width, as many stars per row as fit. */
+    public static final int WRAP = StarLayout.WRAP;
+
+    private final RatingAnimator mAnimator = new RatingAnimator(this) {
         @Override
-        public void onClick(View v) {
-            setRating(indexOfChild(v) +1, true);
+        void onUpdate(float value) {
+            setDisplayedRating(value);
         }
     };
 
+    public interface OnRatingBarChangeListener {
+        void onRatingChanged(StarRatingBar ratingBar, int rating, boolean fromUser);
+    }
+
+    public interface OnFloatRatingBarChangeListener {
+        void onRatingChanged(StarRatingBar ratingBar, float rating, boolean fromUser);
+    }
+
+    /**
+     * Resolves the default attributes of this view for {@code context}'s theme and builds their
+     * star geometry ahead of time. Safe to call from a worker thread, e.g. during cold start.
+     */
+    public static void prewarm(Context context) {
+        final StarAttributes a = StarAttributes.obtainRatingBar(context, null, R.attr.starRatingBarStyle, 0);
+        a.style.prewarm(a.style.getSize(), a.rasterized);
+    }
+
     public StarRatingBar(Context context) {
         this(context, null);
     }
@@ -56,32 +106,38 @@ public class StarRatingBar extends ViewGroup {
 
     public StarRatingBar(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
+        mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
         init(context, attrs, defStyleAttr, 0);
     }
     
     private void init(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
 
-        final TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.StarRatingBar, defStyleAttr, defStyleRes);
-
-        setNumStars(a.getInt(R.styleable.StarRatingBar_android_numStars, 5));
-        setRating((int) a.getFloat(R.styleable.StarRatingBar_android_rating, 0));
-        setGravity(a.getInt(R.styleable.StarIndicator_android_gravity, Gravity.CENTER));
-
-        setStarBackgroundColor(a.getColor(R.styleable.StarRatingBar_srb_starBackgroundColor, Color.LTGRAY));
-        setStarBorderColor(a.getColor(R.styleable.StarRatingBar_srb_starBorderColor, 0));
-        setStarFillColor(a.getColor(R.styleable.StarRatingBar_srb_starFillColor, StarDrawable.DEFAULT_FILL_COLOR));
-
-        setStarCornerRadius(a.getDimensionPixelSize(R.styleable.StarRatingBar_srb_starCornerRadius, 0));
-        setStarBorderWidth(a.getDimensionPixelSize(R.styleable.StarRatingBar_srb_starBorderWidth, 0));
-        setStarSize(a.getDimensionPixelSize(R.styleable.StarRatingBar_srb_starSize, Math.round(toPixel(32))));
-        setStarPadding(a.getDimensionPixelSize(R.styleable.StarRatingBar_srb_starPadding, Math.round(toPixel(4))));
-
-        a.recycle();
+        final StarAttributes a = StarAttributes.obtainRatingBar(context, attrs, defStyleAttr, defStyleRes);
+
+        // flat mode must be known before any star view gets inflated
+        isFlat = a.flat;
+        setWillNotDraw(!isFlat);
+        // shadows get drawn in a pass of their own, beneath all stars: star views would
+        // otherwise clip them to their own bounds
+        mFilled.setShadowDeferred(true);
+
+        // stars are exposed as virtual views, their own views stay out of the accessibility tree
+        ViewCompat.setAccessibilityDelegate(this, mAccessibilityHelper);
+
+        setNumStars(a.numStars);
+        setOrientation(a.orientation);
+        setStepSize(a.stepSize);
+        setRating(a.rating);
+        setGravity(a.gravity);
+        setStarStyle(a.style);
+        setStarRasterized(a.rasterized);
     }
 
     private void setStarPadding(int padding) {
-        mStarPadding = padding;
-        requestLayout();
+        if(mStarPadding != padding) {
+            mStarPadding = padding;
+            requestLayout();
+        }
     }
 
     public void setGravity(int gravity) {
@@ -95,12 +151,41 @@ public class StarRatingBar extends ViewGroup {
         this.mListener = mListener;
     }
 
+    public void setOnFloatRatingBarChangeListener(OnFloatRatingBarChangeListener listener) {
+        this.mFloatListener = listener;
+    }
+
+    /**
+     * Applies all of {@code style} at once, sharing its paints with every other star using it.
+     */
+    public void setStarStyle(StarStyle style) {
+        mOutline.setStyle(style, false);
+        mFilled.setStyle(style, true);
+        // star views share a single drawable and can't be told apart: gradients need flat mode
+        mFill.setStyle(style, isFlat);
+        mFill.setRow(mNumStars, mResolvedStarSize, mStarPadding);
+        mFill.setRating(mDisplayedRating, mNumStars);
+        setStarPadding(style.getPadding());
+        setStarSize(style.getSize());
+        invalidate();
+    }
+
     public void setStarCornerRadius(float radius) {
         mOutline.setCornerRadius(radius);
         mFilled.setCornerRadius(radius);
         invalidate();
     }
 
+    /**
+     * @throws IllegalArgumentException if {@code shape} is null
+     * @see StarShape#fromPathData(String)
+     */
+    public void setStarShape(StarShape shape) {
+        mOutline.setShape(shape);
+        mFilled.setShape(shape);
+        invalidate();
+    }
+
     public void setStarBorderColor(int color) {
         mOutline.setBorderColor(color);
         mFilled.setBorderColor(color);
@@ -113,7 +198,25 @@ public class StarRatingBar extends ViewGroup {
         invalidate();
     }
 
+    public void setStarRasterized(boolean rasterized) {
+        mOutline.setRasterized(rasterized);
+        mFilled.setRasterized(rasterized);
+        invalidate();
+    }
+
+    /**
+     * Draws a shadow beneath filled stars, or a glow when both offsets are 0. Mind that it
+     * extends past the star bounds.
+     *
+     * @see StarStyle.Builder#setShadow(float, int, int, int)
+     */
+    public void setStarShadow(float radius, int dx, int dy, int color) {
+        mFilled.setShadow(radius, dx, dy, color);
+        invalidate();
+    }
+
     public void setStarFillColor(int color) {
+        mFill.reset();
         mFilled.setFillColor(color);
         invalidate();
     }
@@ -124,42 +227,135 @@ public class StarRatingBar extends ViewGroup {
     }
 
     public void setRating(int newRating) {
+        setRating((float) newRating, false);
+    }
+
+    public void setRating(float newRating) {
         setRating(newRating, false);
     }
 
-    private void setRating(int newRating, boolean fromUser) {
+    /**
+     * @param animate whether to animate from the current rating. Animations are frame-synced,
+     *                allocation-free, and skipped entirely if the view isn't shown.
+     */
+    public void setRating(float newRating, boolean animate) {
+        if(animate && isShown()) {
+            mAnimator.start(mDisplayedRating, newRating);
+            dispatchRating(newRating, false);
+        }else {
+            updateRating(newRating, false);
+        }
+    }
+
+    private void updateRating(float newRating, boolean fromUser) {
+        mAnimator.cancel();
+        setDisplayedRating(newRating);
+        dispatchRating(newRating, fromUser);
+    }
+
+    private void setDisplayedRating(float rating) {
+        if(mDisplayedRating != rating) {
+            mDisplayedRating = rating;
+            updateStars();
+        }
+    }
+
+    private void dispatchRating(float newRating, boolean fromUser) {
         if(mRating != newRating) {
-            for (int i = Math.min(newRating, mRating); i < getChildCount(); i++) {
-                setStarDrawable(getChildAt(i), i < newRating);
-            }
+            final int oldRating = (int) mRating;
             mRating = newRating;
-            if(mListener != null) mListener.onRatingChanged(this, newRating, fromUser);
+            if(mFloatListener != null) mFloatListener.onRatingChanged(this, newRating, fromUser);
+            if(mListener != null && oldRating != (int) newRating) mListener.onRatingChanged(this, (int) newRating, fromUser);
+            sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
         }
     }
 
+    /**
+     * @return the rating, rounded down to a whole number of stars.
+     * @see #getFloatRating()
+     */
     public int getRating() {
+        return (int) mRating;
+    }
+
+    public float getFloatRating() {
         return mRating;
     }
 
+    /**
+     * Sets the granularity of ratings set by the user, e.g. 1, 0.5 or 0.1 (default: 1).
+     *
+     * @throws IllegalArgumentException if {@code stepSize} isn't positive
+     */
+    public void setStepSize(float stepSize) {
+        if(!(stepSize > 0)) throw new IllegalArgumentException("step size must be positive: " + stepSize);
+        mStepSize = stepSize;
+    }
+
+    public float getStepSize() {
+        return mStepSize;
+    }
+
+    private void updateStars() {
+        final int full = (int) mDisplayedRating;
+        mPartialClip.setLevel(Math.round((mDisplayedRating - full) * 10000));
+
+        final boolean colorChanged = mFill.setRating(mDisplayedRating, mNumStars);
+
+        for (int i = 0; i < getChildCount(); i++) {
+            final View child = getChildAt(i);
+            setStarDrawable(child, i);
+            if(colorChanged) invalidateStarDrawable(child);
+        }
+
+        // the partial star is shared: swapping it out of its previous star view cleared its
+        // callback, so its level changes must be pushed to the star now holding it
+        if(!isFlat && full < getChildCount() && mDisplayedRating > full) {
+            invalidateStarDrawable(getChildAt(full));
+        }
+
+        // shadows are drawn by this view, past the bounds of the star views
+        if(isFlat || mFilled.hasShadow()) invalidate();
+    }
+
     public void setNumStars(int numStars) {
         if(mNumStars != numStars) {
             mNumStars = numStars;
 
-            while(getChildCount() > numStars) {
-                removeViewAt(getChildCount() - 1);
+            if(!isFlat) {
+                while (getChildCount() > numStars) {
+                    final View star = getChildAt(getChildCount() - 1);
+                    removeViewAt(getChildCount() - 1);
+                    recycleStar(star);
+                }
+
+                while (getChildCount() < numStars) {
+                    final View star = createStar();
+                    ViewCompat.setImportantForAccessibility(star, ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_NO);
+                    setStarDrawable(star, getChildCount());
+                    addView(star);
+                }
             }
 
-            while(getChildCount() < numStars) {
-                final View star = createStar();
-                star.setOnClickListener(mClickListener);
-                setStarDrawable(star, getChildCount() < mRating);
-                addView(star);
-            }
+            requestLayout();
+        }
+    }
 
+    /**
+     * @param orientation one of {@link #HORIZONTAL}, {@link #VERTICAL} or {@link #WRAP}. Auto-sized
+     *                    stars wrap at 24dp at least, then grow to fill each row.
+     */
+    public void setOrientation(int orientation) {
+        if(mOrientation != orientation) {
+            mOrientation = orientation;
             requestLayout();
         }
     }
 
+    public int getOrientation() {
+        return mOrientation;
+    }
+
     public void setStarSize(int size) {
         if(mStarSize != size) {
             mStarSize = size;
@@ -169,33 +365,48 @@ public class StarRatingBar extends ViewGroup {
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if(!StarMetrics.sEnabled) {
+            measureStars(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
 
-        final int wmode = MeasureSpec.getMode(widthMeasureSpec);
-        final int hmode = MeasureSpec.getMode(heightMeasureSpec);
-        final int suggestedWidth = MeasureSpec.getSize(widthMeasureSpec);
-        final int suggestedHeight = MeasureSpec.getSize(heightMeasureSpec);
-
-        if(mStarSize <= 0) {
-            if(mNumStars > 0) {
-                mStarSize = suggestedWidth - getPaddingLeft() - getPaddingRight();
-                mStarSize -= mStarPadding*(mNumStars - 1);
-                mStarSize /= (float) mNumStars;
-            }else
-                mStarSize = 0;
+        final long start = StarMetrics.begin("StarRatingBar#onMeasure");
+        try {
+            measureStars(widthMeasureSpec, heightMeasureSpec);
+        } finally {
+            StarMetrics.end(StarMetrics.MEASURE, start);
         }
+    }
 
-        int width = Math.round(mNumStars*mStarSize + mStarPadding*(mNumStars - 1));
-        int height = Math.round(mStarSize);
+    private void measureStars(int widthMeasureSpec, int heightMeasureSpec) {
 
-        if(wmode == MeasureSpec.EXACTLY)
-            width = suggestedWidth;
-        else if(wmode == MeasureSpec.AT_MOST)
-            width = Math.max(getSuggestedMinimumWidth(), Math.min(suggestedWidth, width));
+        final int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        final int verticalPadding = getPaddingTop() + getPaddingBottom();
 
-        if(hmode == MeasureSpec.EXACTLY)
-            height = suggestedHeight;
-        else if(hmode == MeasureSpec.AT_MOST)
-            height = Math.max(getSuggestedMinimumHeight(), Math.min(suggestedHeight, height));
+        final int suggestedWidth = MeasureSpec.getSize(widthMeasureSpec);
+        final int available = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED
+                ? Integer.MAX_VALUE : suggestedWidth - horizontalPadding;
+        final int availableHeight = MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.UNSPECIFIED
+                ? Integer.MAX_VALUE : MeasureSpec.getSize(heightMeasureSpec) - verticalPadding;
+        final float minStarSize = StarLayout.MIN_WRAP_STAR_SIZE_DP * getResources().getDisplayMetrics().density;
+
+        mColumns = StarLayout.columns(mOrientation, mNumStars, mStarSize, mStarPadding, available, minStarSize);
+        final int lines = StarLayout.lines(mNumStars, mColumns);
+
+        // the requested size is kept apart so that an auto size follows the available space
+        mResolvedStarSize = StarLayout.resolveStarSize(mStarSize,
+                suggestedWidth - horizontalPadding, availableHeight, mColumns, lines, mStarPadding);
+        final int width = StarLayout.resolveSize(widthMeasureSpec,
+                Math.round(StarLayout.rowWidth(mColumns, mResolvedStarSize, mStarPadding)), getSuggestedMinimumWidth());
+        final int height = StarLayout.resolveSize(heightMeasureSpec,
+                Math.round(StarLayout.rowWidth(lines, mResolvedStarSize, mStarPadding)), getSuggestedMinimumHeight());
+
+        if(!isFlat) {
+            final int starSpec = MeasureSpec.makeMeasureSpec(Math.round(mResolvedStarSize), MeasureSpec.EXACTLY);
+            for(int i = 0; i < getChildCount(); i++) {
+                getChildAt(i).measure(starSpec, starSpec);
+            }
+        }
 
         mBounds.set(getPaddingLeft(), getPaddingTop(), width - getPaddingRight(), height - getPaddingBottom());
         setMeasuredDimension(width, height);
@@ -203,24 +414,223 @@ public class StarRatingBar extends ViewGroup {
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if(!StarMetrics.sEnabled) {
+            layoutStars();
+            return;
+        }
+
+        final long start = StarMetrics.begin("StarRatingBar#onLayout");
+        try {
+            layoutStars();
+        } finally {
+            StarMetrics.end(StarMetrics.LAYOUT, start);
+        }
+    }
 
-        mFilled.setSize(Math.round(mStarSize));
-        mOutline.setSize(Math.round(mStarSize));
+    private void layoutStars() {
 
-        Gravity.apply(mGravity,
-                Math.round(mNumStars*mStarSize + mStarPadding*(mNumStars - 1)),
-                Math.round(mStarSize), mBounds, mTmp);
+        final int size = Math.round(mResolvedStarSize);
 
-        float left = mTmp.left;
+        mFilled.setSize(size);
+        mOutline.setSize(size);
+        mPartial.setBounds(0, 0, size, size);
+
+        final int rowWidth = Math.round(StarLayout.rowWidth(mColumns, mResolvedStarSize, mStarPadding));
+        final int rowHeight = Math.round(StarLayout.rowWidth(StarLayout.lines(mNumStars, mColumns), mResolvedStarSize, mStarPadding));
+
+        mStarsLeft = StarLayout.gravityLeft(mGravity, rowWidth, mBounds.left, mBounds.right);
+        mStarsTop = StarLayout.gravityTop(mGravity, rowHeight, mBounds.top, mBounds.bottom);
+
+        if(isFlat) {
+            mFill.setRow(mNumStars, mResolvedStarSize, mStarPadding);
+            mFilled.setBounds(0, 0, size, size);
+            mOutline.setBounds(0, 0, size, size);
+            return;
+        }
 
         for(int i = 0; i < getChildCount(); i++) {
             final View child = getChildAt(i);
-            child.layout(Math.round(left), mTmp.top, Math.round(left + mStarSize), Math.round(mTmp.top + mStarSize));
+            getStarBounds(i, mTmpRect);
+            child.layout(mTmpRect.left, mTmpRect.top, mTmpRect.right, mTmpRect.bottom);
             invalidateStarDrawable(child);
-            left+=mStarSize+mStarPadding;
         }
     }
 
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if(!StarMetrics.sEnabled) {
+            drawStars(canvas);
+            return;
+        }
+
+        final long start = StarMetrics.begin("StarRatingBar#onDraw");
+        try {
+            drawStars(canvas);
+        } finally {
+            StarMetrics.end(StarMetrics.DRAW, start);
+        }
+    }
+
+    private void drawStars(Canvas canvas) {
+        if(!isFlat || !canvas.getClipBounds(mClipBounds)) return;
+
+        if(mFilled.hasShadow()) drawShadows(canvas);
+
+        final int full = (int) mDisplayedRating;
+
+        for(int i = 0; i < mNumStars; i++) {
+            getStarBounds(i, mTmpRect);
+            // only pay for the stars within the clip, e.g. when scrolled
+            if(!Rect.intersects(mTmpRect, mClipBounds)) continue;
+
+            canvas.save();
+            canvas.translate(mTmpRect.left, mTmpRect.top);
+            mFilled.setShaderIndex(i);
+
+            if(i < full) {
+                mFilled.draw(canvas);
+            }else if(i == full && mDisplayedRating > full) {
+                mOutline.draw(canvas);
+                canvas.save();
+                canvas.clipRect(0, 0, mResolvedStarSize * (mDisplayedRating - full), mResolvedStarSize);
+                mFilled.draw(canvas);
+                canvas.restore();
+            }else {
+                mOutline.draw(canvas);
+            }
+
+            canvas.restore();
+        }
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if(!isFlat && mFilled.hasShadow() && canvas.getClipBounds(mClipBounds)) drawShadows(canvas);
+        super.dispatchDraw(canvas);
+    }
+
+    private void drawShadows(Canvas canvas) {
+        final int extent = mFilled.getShadowExtent();
+        final int count = Math.min(mNumStars, (int) Math.ceil(mDisplayedRating));
+
+        for(int i = 0; i < count; i++) {
+            getStarBounds(i, mTmpRect);
+            final int left = mTmpRect.left, top = mTmpRect.top;
+            mTmpRect.inset(-extent, -extent);
+            if(!Rect.intersects(mTmpRect, mClipBounds)) continue;
+
+            canvas.save();
+            canvas.translate(left, top);
+            final float fraction = mDisplayedRating - i;
+            if(fraction < 1) {
+                canvas.clipRect(-extent, -extent, mResolvedStarSize * fraction, mResolvedStarSize + extent);
+            }
+            mFilled.drawShadow(canvas);
+            canvas.restore();
+        }
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent event) {
+        // stars are hit-tested arithmetically in onTouchEvent(), never through child dispatch
+        return isEnabled();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if(!isEnabled()) return false;
+
+        final float x = event.getX();
+        final float y = event.getY();
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                final int index = getStarIndex(x, y);
+                if(index < 0) return false;
+                mTouchDownX = x;
+                mTouchDownY = y;
+                mTouchDownRating = mRating;
+                isDragging = false;
+                setPressedStar(isFlat ? null : getChildAt(index));
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                if(!isDragging && Math.max(Math.abs(x - mTouchDownX), Math.abs(y - mTouchDownY)) > mTouchSlop) {
+                    isDragging = true;
+                    setPressedStar(null);
+                    if(getParent() != null) getParent().requestDisallowInterceptTouchEvent(true);
+                }
+                if(isDragging) setRatingFromTouch(x, y);
+                break;
+
+            case MotionEvent.ACTION_UP:
+                setPressedStar(null);
+                if(!isDragging) playSoundEffect(SoundEffectConstants.CLICK);
+                setRatingFromTouch(x, y);
+                isDragging = false;
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                setPressedStar(null);
+                if(isDragging) updateRating(mTouchDownRating, true);
+                isDragging = false;
+                break;
+        }
+
+        return true;
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return mAccessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    @Override
+    public boolean performAccessibilityAction(int action, Bundle arguments) {
+        if(isEnabled()) {
+            switch (action) {
+                case AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD:
+                    if(mRating >= mNumStars) return false;
+                    updateRating(Math.min(mNumStars, mRating + mStepSize), true);
+                    return true;
+
+                case AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD:
+                    if(mRating <= 0) return false;
+                    updateRating(Math.max(0, mRating - mStepSize), true);
+                    return true;
+            }
+        }
+        return super.performAccessibilityAction(action, arguments);
+    }
+
+    private void setRatingFromTouch(float x, float y) {
+        final float rating = StarLayout.ratingAt(x - mStarsLeft, y - mStarsTop,
+                mNumStars, mColumns, mResolvedStarSize, mStarPadding, mStepSize);
+        // a tap always rates at least one step, only dragging can bring the rating down to 0
+        updateRating(isDragging ? rating : Math.max(rating, Math.min(mStepSize, mNumStars)), true);
+    }
+
+    private void setPressedStar(View star) {
+        if(mPressedStar != null) mPressedStar.setPressed(false);
+        mPressedStar = star;
+        if(star != null) star.setPressed(true);
+    }
+
+    /**
+     * @return the index of the star under (x, y), or -1 if none.
+     */
+    private int getStarIndex(float x, float y) {
+        return StarLayout.starIndexAt(x - mStarsLeft, y - mStarsTop,
+                mNumStars, mColumns, mResolvedStarSize, mStarPadding);
+    }
+
+    private void getStarBounds(int index, Rect outRect) {
+        final float left = mStarsLeft + StarLayout.starLeft(index, mColumns, mResolvedStarSize, mStarPadding);
+        final float top = mStarsTop + StarLayout.starTop(index, mColumns, mResolvedStarSize, mStarPadding);
+        outRect.set(Math.round(left), Math.round(top),
+                Math.round(left + mResolvedStarSize), Math.round(top + mResolvedStarSize));
+    }
+
     private ImageView getImageView(View view) {
         if(view instanceof ImageView)
             return (ImageView) view;
@@ -233,27 +643,69 @@ public class StarRatingBar extends ViewGroup {
         iv.invalidateDrawable(iv.getDrawable());
     }
 
-    private void setStarDrawable(View view, boolean filled) {
-        getImageView(view).setImageDrawable(filled ? mFilled : mOutline);
+    private void setStarDrawable(View view, int index) {
+        final int full = (int) mDisplayedRating;
+        final Drawable drawable;
+
+        if(index < full) drawable = mFilled;
+        else if(index == full && mDisplayedRating > full) drawable = mPartial;
+        else drawable = mOutline;
+
+        final ImageView iv = getImageView(view);
+        if(iv.getDrawable() != drawable) iv.setImageDrawable(drawable);
+    }
+
+    private StarViewPool getStarPool() {
+        if(mStarPool == null) {
+            mStarPool = StarViewPool.get(getContext());
+        }
+        return mStarPool;
     }
 
     private View createStar() {
+        final View star = getStarPool().acquire();
+        if(star != null) return star;
+
         if(mLayoutInflater == null) {
             mLayoutInflater = LayoutInflater.from(getContext());
+            // the context's inflater isn't thread-safe: don't share it when built off the main thread
+            if(Looper.myLooper() != Looper.getMainLooper()) {
+                mLayoutInflater = mLayoutInflater.cloneInContext(getContext());
+            }
         }
         return mLayoutInflater.inflate(R.layout.srb_star_item, this, false);
     }
 
-    private float toPixel(float dp){
-        Resources r = getResources();
-        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, r.getDisplayMetrics());
+    private void recycleStar(View star) {
+        star.setPressed(false);
+        getImageView(star).setImageDrawable(null);
+        star.jumpDrawablesToCurrentState();
+        getStarPool().release(star);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAnimator.end();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        if(visibility == VISIBLE) mAnimator.resume();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if(visibility == VISIBLE) mAnimator.resume();
     }
 
     @Override
     public Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
         SavedState ss = new SavedState(superState);
-        ss.rating = getRating();
+        ss.rating = mRating;
         return ss;
     }
 
@@ -269,9 +721,87 @@ public class StarRatingBar extends ViewGroup {
         super.onRestoreInstanceState(ss.getSuperState());
     }
 
+    /**
+     * Exposes each star as a virtual view through a single node provider, so that the
+     * accessibility cost of a bar doesn't grow with its number of stars.
+     */
+    private class AccessibilityHelper extends ExploreByTouchHelper {
+
+        AccessibilityHelper() {
+            super(StarRatingBar.this);
+        }
+
+        @Override
+        public void onInitializeAccessibilityNodeInfo(View host, AccessibilityNodeInfoCompat info) {
+            super.onInitializeAccessibilityNodeInfo(host, info);
+            info.setClassName(RatingBar.class.getName());
+            info.setRangeInfo(AccessibilityNodeInfoCompat.RangeInfoCompat.obtain(
+                    AccessibilityNodeInfoCompat.RangeInfoCompat.RANGE_TYPE_FLOAT, 0, mNumStars, mRating));
+
+            if(isEnabled()) {
+                if(mRating > 0) info.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD);
+                if(mRating < mNumStars) info.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD);
+            }
+        }
+
+        @Override
+        public void onInitializeAccessibilityEvent(View host, AccessibilityEvent event) {
+            super.onInitializeAccessibilityEvent(host, event);
+            event.setClassName(RatingBar.class.getName());
+            // reported in steps, the way platform rating bars do
+            event.setItemCount(Math.round(mNumStars / mStepSize));
+            event.setCurrentItemIndex(Math.round(mRating / mStepSize));
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            final int index = getStarIndex(x, y);
+            return index < 0 ? INVALID_ID : index;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            for(int i = 0; i < mNumStars; i++) {
+                virtualViewIds.add(i);
+            }
+        }
+
+        @Override
+        protected void onPopulateEventForVirtualView(int virtualViewId, AccessibilityEvent event) {
+            event.setContentDescription(getStarDescription(virtualViewId));
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
+            getStarBounds(virtualViewId, mTmpRect);
+            node.setBoundsInParent(mTmpRect);
+            node.setContentDescription(getStarDescription(virtualViewId));
+            node.setSelected(virtualViewId < mRating);
+            node.setEnabled(isEnabled());
+
+            if(isEnabled()) {
+                node.setClickable(true);
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+            }
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action, Bundle arguments) {
+            if(action != AccessibilityNodeInfoCompat.ACTION_CLICK || !isEnabled()) return false;
+
+            updateRating(virtualViewId + 1f, true);
+            sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+            return true;
+        }
+
+        private CharSequence getStarDescription(int index) {
+            return getResources().getQuantityString(R.plurals.srb_star_description, index + 1, index + 1);
+        }
+    }
+
     private static class SavedState extends BaseSavedState {
 
-        private int rating;
+        private float rating;
 
         SavedState(Parcelable superState) {
             super(superState);
@@ -279,13 +809,13 @@ public class StarRatingBar extends ViewGroup {
 
         private SavedState(Parcel in) {
             super(in);
-            rating = in.readInt();
+            rating = in.readFloat();
         }
 
         @Override
         public void writeToParcel(Parcel out, int flags) {
             super.writeToParcel(out, flags);
-            out.writeInt(rating);
+            out.writeFloat(rating);
         }
 
         public static final Parcelable.Creator<SavedState> CREATOR =
@@ -0,0 +1,302 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.LayerDrawable;
+import android.view.Gravity;
+
+/**
+ * Draws a full rating, e.g. as a background or compound drawable, without the cost of a view.
+ *
+ * The rating is mapped onto the drawable level (0 to 10000), so a partial fill can be set through
+ * either {@link #setRating(float)} or {@link #setLevel(int)}. Drawables obtained from the same
+ * {@link #getConstantState() constant state} share their properties until {@link #mutate()}: a
+ * change made through one of them is picked up by the others on their next draw. The rating
+ * (the level) belongs to each drawable.
+ */
+public class StarRatingDrawable extends Drawable implements Drawable.Callback {
+
+    private static final int MAX_LEVEL = 10000;
+
+    private RatingState mState;
+    private int mGeneration;
+    private boolean isMutated;
+
+    private final StarDrawable mOutline = new StarDrawable();
+    private final StarDrawable mFilled = new StarDrawable();
+    private final StarRowDrawable mOutlineRow;
+    private final StarRowDrawable mFilledRow;
+    private final LayerDrawable mLayers;
+
+    private ColorFilter mColorFilter;
+    private int mOffsetX, mOffsetY;
+
+    public StarRatingDrawable(StarStyle style, int numStars) {
+        this(new RatingState(style, numStars));
+    }
+
+    private StarRatingDrawable(RatingState state) {
+        mState = state;
+
+        mOutlineRow = new StarRowDrawable(mOutline);
+        mFilledRow = new StarRowDrawable(mFilled);
+        // the filled row clips its last star by itself, following the rating
+        mLayers = new LayerDrawable(new Drawable[]{mOutlineRow, mFilledRow});
+        // shadows are drawn beneath the outline stars as well
+        mFilledRow.setDrawShadows(false);
+        mLayers.setCallback(this);
+
+        applyState();
+    }
+
+    /**
+     * Applies the state to the rows after it changed, through this drawable or any other one
+     * sharing it.
+     */
+    private boolean syncState() {
+        if(mGeneration == mState.generation) return false;
+        applyState();
+        return true;
+    }
+
+    private void applyState() {
+        mGeneration = mState.generation;
+        mOutline.setStyle(mState.style, false);
+        mFilled.setStyle(mState.style, true);
+        mOutline.setRasterized(mState.rasterized);
+        mFilled.setRasterized(mState.rasterized);
+
+        mOutlineRow.setCount(mState.numStars);
+        mFilledRow.setCount(mState.numStars);
+        mOutlineRow.setDivider(mState.style.getPadding());
+        mFilledRow.setDivider(mState.style.getPadding());
+
+        // styles come with shared paints, so per-drawable paint changes must be applied again
+        if(mState.alpha != 0xFF) mLayers.setAlpha(mState.alpha);
+        if(mColorFilter != null) mLayers.setColorFilter(mColorFilter);
+
+        mFilledRow.setFillLimit(getRating());
+        updateLayout(getBounds());
+    }
+
+    public void setStyle(StarStyle style) {
+        if(!mState.style.equals(style)) {
+            mState.style = style;
+            mState.generation++;
+            applyState();
+        }
+    }
+
+    public StarStyle getStyle() {
+        return mState.style;
+    }
+
+    public void setNumStars(int numStars) {
+        if(mState.numStars != numStars) {
+            final float rating = getRating();
+            mState.numStars = numStars;
+            mState.generation++;
+            applyState();
+            setRating(rating);
+        }
+    }
+
+    public int getNumStars() {
+        return mState.numStars;
+    }
+
+    public void setRasterized(boolean rasterized) {
+        if(mState.rasterized != rasterized) {
+            mState.rasterized = rasterized;
+            mState.generation++;
+            applyState();
+        }
+    }
+
+    /**
+     * Places the stars within bounds larger than the row. Defaults to {@link Gravity#CENTER}.
+     */
+    public void setGravity(int gravity) {
+        if(mState.gravity != gravity) {
+            mState.gravity = gravity;
+            mState.generation++;
+            applyState();
+        }
+    }
+
+    public int getGravity() {
+        return mState.gravity;
+    }
+
+    public void setRating(float rating) {
+        final int numStars = mState.numStars;
+        setLevel(numStars > 0 ? Math.round((rating * MAX_LEVEL) / numStars) : 0);
+    }
+
+    public float getRating() {
+        return (getLevel() * mState.numStars) / (float) MAX_LEVEL;
+    }
+
+    @Override
+    protected boolean onLevelChange(int level) {
+        mFilledRow.setFillLimit(getRating());
+        invalidateSelf();
+        return true;
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        if(!syncState()) updateLayout(bounds);
+    }
+
+    private void updateLayout(Rect bounds) {
+        final int numStars = mState.numStars;
+        final int padding = mState.style.getPadding();
+
+        // a style without an explicit size fits the stars to the bounds
+        int size = mState.style.getSize();
+        if(size <= 0) {
+            size = Math.min(bounds.height(),
+                    (int) StarLayout.resolveStarSize(0, bounds.width(), numStars, padding));
+        }
+        size = Math.max(0, size);
+
+        mOutlineRow.setSize(size);
+        mFilledRow.setSize(size);
+
+        final int width = StarLayout.rowWidth(numStars, size, padding);
+
+        mOutlineRow.setBounds(0, 0, width, size);
+        mFilledRow.setBounds(0, 0, width, size);
+        mLayers.setBounds(0, 0, width, size);
+
+        mOffsetX = StarLayout.gravityLeft(mState.gravity, width, bounds.left, bounds.right);
+        mOffsetY = StarLayout.gravityTop(mState.gravity, size, bounds.top, bounds.bottom);
+
+        invalidateSelf();
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        final int size = mState.style.getSize();
+        return size > 0 ? StarLayout.rowWidth(mState.numStars, size, mState.style.getPadding()) : -1;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        final int size = mState.style.getSize();
+        return size > 0 ? size : -1;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        syncState();
+
+        if(mOffsetX != 0 || mOffsetY != 0) {
+            canvas.save();
+            canvas.translate(mOffsetX, mOffsetY);
+        }
+
+        mFilledRow.drawShadows(canvas);
+        mLayers.draw(canvas);
+
+        if(mOffsetX != 0 || mOffsetY != 0) {
+            canvas.restore();
+        }
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if(mState.alpha != alpha) {
+            mState.alpha = alpha;
+            mState.generation++;
+            applyState();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return mState.alpha;
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mColorFilter = colorFilter;
+        mLayers.setColorFilter(colorFilter);
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    @Override
+    public Drawable mutate() {
+        if(!isMutated && super.mutate() == this) {
+            mState = new RatingState(mState);
+            isMutated = true;
+        }
+        return this;
+    }
+
+    @Override
+    public ConstantState getConstantState() {
+        mState.changingConfigurations = getChangingConfigurations();
+        return mState;
+    }
+
+    @Override
+    public void invalidateDrawable(Drawable who) {
+        invalidateSelf();
+    }
+
+    @Override
+    public void scheduleDrawable(Drawable who, Runnable what, long when) {
+        scheduleSelf(what, when);
+    }
+
+    @Override
+    public void unscheduleDrawable(Drawable who, Runnable what) {
+        unscheduleSelf(what);
+    }
+
+    private static final class RatingState extends ConstantState {
+
+        StarStyle style;
+        int numStars;
+        boolean rasterized;
+        int gravity = Gravity.CENTER;
+        int alpha = 0xFF;
+        int changingConfigurations;
+        // bumped on every change, for drawables sharing this state to catch up
+        int generation;
+
+        RatingState(StarStyle style, int numStars) {
+            this.style = style;
+            this.numStars = numStars;
+        }
+
+        RatingState(RatingState state) {
+            style = state.style;
+            numStars = state.numStars;
+            rasterized = state.rasterized;
+            gravity = state.gravity;
+            alpha = state.alpha;
+            changingConfigurations = state.changingConfigurations;
+            generation = state.generation;
+        }
+
+        @Override
+        public Drawable newDrawable() {
+            return new StarRatingDrawable(this);
+        }
+
+        @Override
+        public int getChangingConfigurations() {
+            return changingConfigurations;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.text.style.ReplacementSpan;
+
+/**
+ * Draws a rating inline within text, stars being sized after the font metrics of the
+ * surrounding text. Lets a {@code TextView} (or {@code PrecomputedText}) replace a text + {@link StarIndicator} pair.
+ *
+ * Measurement is cached per text size, so text layout passes don't recompute star geometry.
+ */
+public class StarRatingSpan extends ReplacementSpan {
+
+    private final StarRenderer mRenderer;
+    private final Paint.FontMetricsInt mFontMetrics = new Paint.FontMetricsInt();
+    private final float mRating;
+    private float mTextSize = -1;
+
+    public StarRatingSpan(float rating, int numStars) {
+        this(rating, numStars, StarStyle.DEFAULT);
+    }
+
+    public StarRatingSpan(float rating, int numStars, StarStyle style) {
+        mRating = rating;
+        mRenderer = new StarRenderer(style, numStars);
+    }
+
+    public float getRating() {
+        return mRating;
+    }
+
+    @Override
+    public int getSize(Paint paint, CharSequence text, int start, int end, Paint.FontMetricsInt fm) {
+        updateMetrics(paint);
+
+        if (fm != null) {
+            fm.top = mFontMetrics.top;
+            fm.ascent = mFontMetrics.ascent;
+            fm.descent = mFontMetrics.descent;
+            fm.bottom = mFontMetrics.bottom;
+            fm.leading = mFontMetrics.leading;
+        }
+
+        return mRenderer.getWidth();
+    }
+
+    @Override
+    public void draw(Canvas canvas, CharSequence text, int start, int end,
+                     float x, int top, int y, int bottom, Paint paint) {
+        updateMetrics(paint);
+
+        final int saveCount = canvas.save();
+        canvas.translate(x, y + mFontMetrics.ascent);
+        mRenderer.draw(canvas, mRating);
+        canvas.restoreToCount(saveCount);
+    }
+
+    private void updateMetrics(Paint paint) {
+        final float textSize = paint.getTextSize();
+        if (textSize != mTextSize) {
+            mTextSize = textSize;
+            paint.getFontMetricsInt(mFontMetrics);
+            mRenderer.setStarSize(mFontMetrics.descent - mFontMetrics.ascent);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.util.LruCache;
+import android.view.Gravity;
+
+/**
+ * View-free renderer drawing a rating with a given {@link StarStyle} into any {@link Canvas} or
+ * {@link Bitmap}: notifications, map markers, app widgets, shared images...
+ *
+ * Bitmaps returned by {@link #getBitmap(float)} can optionally be cached process-wide, keyed by
+ * (style, star count, star size, rating rounded to {@link #setRatingStep(float) the rating step}),
+ * so that every renderer showing the same rating shares a single bitmap.
+ *
+ * Many ratings can also be drawn in a single pass with {@link #draw(Canvas, float[], int[], int, int)},
+ * e.g. from a scrolling table or a RecyclerView ItemDecoration, without any per-row view.
+ *
+ * Instances are not thread-safe.
+ */
+public final class StarRenderer {
+
+    private static final int MAX_CACHE_BYTES = 4 * 1024 * 1024;
+
+    private static final LruCache<Key, Bitmap> sCache = new LruCache<Key, Bitmap>(MAX_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(Key key, Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    };
+
+    private final StarDrawable mOutline = new StarDrawable();
+    private final StarDrawable mFilled = new StarDrawable();
+    private final StarRowDrawable mOutlineStarsDrawable;
+    private final StarRowDrawable mFilledStarsDrawable;
+    private final Canvas mCanvas = new Canvas();
+    private final Rect mClipBounds = new Rect();
+
+    private final StarStyle mStyle;
+    private final int mNumStars;
+    private int mStarSize;
+    private float mRatingStep = 0.5f;
+    private int mGravity = Gravity.LEFT | Gravity.CENTER_VERTICAL;
+    private boolean isRasterized;
+    private boolean isCacheEnabled;
+
+    /**
+     * @param style the style to render with. If it doesn't specify a star size,
+     *              {@link #setStarSize(int)} must be called before drawing.
+     */
+    public StarRenderer(StarStyle style, int numStars) {
+        mStyle = style;
+        mNumStars = numStars;
+
+        mOutline.setStyle(style, false);
+        mFilled.setStyle(style, true);
+
+        mOutlineStarsDrawable = new StarRowDrawable(mOutline);
+        mFilledStarsDrawable = new StarRowDrawable(mFilled);
+        // shadows are drawn beneath the outline stars as well
+        mFilledStarsDrawable.setDrawShadows(false);
+
+        mOutlineStarsDrawable.setCount(numStars);
+        mFilledStarsDrawable.setCount(numStars);
+        mOutlineStarsDrawable.setDivider(style.getPadding());
+        mFilledStarsDrawable.setDivider(style.getPadding());
+
+        setStarSize(style.getSize());
+    }
+
+    public void setStarSize(int size) {
+        if (mStarSize != size) {
+            mStarSize = size;
+            mOutlineStarsDrawable.setSize(size);
+            mFilledStarsDrawable.setSize(size);
+            mOutlineStarsDrawable.setBounds(0, 0, getWidth(), getHeight());
+            mFilledStarsDrawable.setBounds(0, 0, getWidth(), getHeight());
+        }
+    }
+
+    public int getStarSize() {
+        return mStarSize;
+    }
+
+    public void setRasterized(boolean rasterized) {
+        isRasterized = rasterized;
+        mOutline.setRasterized(rasterized);
+        mFilled.setRasterized(rasterized);
+    }
+
+    /**
+     * Ratings are rounded to a multiple of {@code step} by {@link #getBitmap(float)} (default: 0.5).
+     *
+     * @throws IllegalArgumentException if {@code step} isn't positive
+     */
+    public void setRatingStep(float step) {
+        if (!(step > 0)) throw new IllegalArgumentException("step must be positive: " + step);
+        mRatingStep = step;
+    }
+
+    /**
+     * Positions rows drawn by {@link #draw(Canvas, float[], int[], int, int)} within their rectangle.
+     */
+    public void setGravity(int gravity) {
+        mGravity = gravity;
+    }
+
+    public void setCacheEnabled(boolean enabled) {
+        isCacheEnabled = enabled;
+    }
+
+    public int getWidth() {
+        return mOutlineStarsDrawable.getIntrinsicWidth();
+    }
+
+    public int getHeight() {
+        return mStarSize;
+    }
+
+    /**
+     * Draws {@code rating} at the origin of {@code canvas}, spanning {@link #getWidth()} x {@link #getHeight()}.
+     */
+    public void draw(Canvas canvas, float rating) {
+        // the filled row clips its last star by itself
+        mFilledStarsDrawable.setFillLimit(rating);
+        mFilledStarsDrawable.drawShadows(canvas);
+        mOutlineStarsDrawable.draw(canvas);
+        mFilledStarsDrawable.draw(canvas);
+    }
+
+    /**
+     * Same as {@link #draw(Canvas, float[], int[], int, int)} for all of {@code ratings}.
+     */
+    public void draw(Canvas canvas, float[] ratings, int[] rects) {
+        draw(canvas, ratings, rects, 0, ratings.length);
+    }
+
+    /**
+     * Draws {@code count} ratings in a single pass: row {@code i} shows {@code ratings[i]} within
+     * the rectangle {@code rects[4*i .. 4*i+3]} (left, top, right, bottom), positioned by gravity.
+     * Rows outside of the canvas clip bounds are skipped.
+     */
+    public void draw(Canvas canvas, float[] ratings, int[] rects, int offset, int count) {
+        if (!canvas.getClipBounds(mClipBounds)) return;
+
+        final int width = getWidth();
+        final int height = getHeight();
+
+        for (int i = offset; i < offset + count; i++) {
+            final int left = rects[4 * i];
+            final int top = rects[4 * i + 1];
+            final int right = rects[4 * i + 2];
+            final int bottom = rects[4 * i + 3];
+
+            if (!mClipBounds.intersects(left, top, right, bottom)) continue;
+
+            final int saveCount = canvas.save();
+            canvas.translate(StarLayout.gravityLeft(mGravity, width, left, right),
+                    StarLayout.gravityTop(mGravity, height, top, bottom));
+            draw(canvas, ratings[i]);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    /**
+     * Draws {@code rating} at the top left corner of {@code bitmap}, which must be mutable.
+     */
+    public void draw(Bitmap bitmap, float rating) {
+        mCanvas.setBitmap(bitmap);
+        draw(mCanvas, rating);
+        mCanvas.setBitmap(null);
+    }
+
+    /**
+     * @return a bitmap of {@code rating} rounded to the rating step. When the cache is enabled,
+     * the returned bitmap may be shared and must not be modified.
+     */
+    public Bitmap getBitmap(float rating) {
+        final float rounded = Math.round(rating / mRatingStep) * mRatingStep;
+
+        if (!isCacheEnabled) return createBitmap(rounded);
+
+        final Key key = new Key(mStyle, mNumStars, mStarSize, isRasterized, rounded);
+        Bitmap bitmap = sCache.get(key);
+        if (bitmap == null) {
+            bitmap = createBitmap(rounded);
+            sCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    public static void clearCache() {
+        sCache.evictAll();
+    }
+
+    private Bitmap createBitmap(float rating) {
+        final Bitmap bitmap = Bitmap.createBitmap(Math.max(1, getWidth()), Math.max(1, getHeight()), Bitmap.Config.ARGB_8888);
+        draw(bitmap, rating);
+        return bitmap;
+    }
+
+    private static final class Key {
+
+        final StarStyle style;
+        final int numStars;
+        final int starSize;
+        final boolean rasterized;
+        final float rating;
+
+        Key(StarStyle style, int numStars, int starSize, boolean rasterized, float rating) {
+            this.style = style;
+            this.numStars = numStars;
+            this.starSize = starSize;
+            this.rasterized = rasterized;
+            this.rating = rating;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            final Key key = (Key) o;
+            return numStars == key.numStars
+                    && starSize == key.starSize
+                    && rasterized == key.rasterized
+                    && Float.compare(rating, key.rating) == 0
+                    && style.equals(key.style);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = style.hashCode();
+            result = 31 * result + numStars;
+            result = 31 * result + starSize;
+            result = 31 * result + (rasterized ? 1 : 0);
+            result = 31 * result + Float.floatToIntBits(rating);
+            return result;
+        }
+    }
+}
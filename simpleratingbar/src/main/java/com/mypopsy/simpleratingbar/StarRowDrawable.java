@@ -0,0 +1,261 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.support.v7.graphics.drawable.DrawableWrapper;
+import android.view.Gravity;
+
+/**
+ * Created by Cerrato Renaud <renaud.cerrato@gmail.com>
+ * https://github.com/renaudcerrato
+ * 1/18/17
+ *
+ * Repeats a star on lines of {@link #setColumns(int) columns} stars: a single row by default, a
+ * column with one star per line, or wrapping rows. Stars outside the canvas clip aren't drawn,
+ * nor stars outside of the {@link #setFillStart(float) fill range}.
+ */
+class StarRowDrawable extends DrawableWrapper {
+
+    private final StarDrawable mDrawable;
+    private final Rect mClipBounds = new Rect();
+
+    private int mCount, mSize;
+    private int mColumns;
+    private boolean isDirty = true;
+    private int mGravity = Gravity.CENTER;
+    private int mDivider;
+    private int mOffsetX, mOffsetY;
+    private float mFillStart;
+    private float mFillLimit = Float.MAX_VALUE;
+    private boolean isDrawingShadows = true;
+
+    StarRowDrawable(StarDrawable drawable) {
+        super(drawable);
+        mDrawable = drawable;
+        // shadows get their own pass, beneath all stars
+        mDrawable.setShadowDeferred(true);
+    }
+
+    void setGravity(int gravity) {
+        if (mGravity != gravity) {
+            mGravity = gravity;
+            isDirty = true;
+            invalidateSelf();
+        }
+    }
+
+    void setSize(int size) {
+        if (mSize != size) {
+            mSize = size;
+            updateBounds();
+        }
+    }
+
+    void setDivider(int divider) {
+        if (mDivider != divider) {
+            mDivider = divider;
+            isDirty = true;
+            invalidateSelf();
+        }
+    }
+
+    void setCount(int count) {
+        if (mCount != count) {
+            mCount = count;
+            updateBounds();
+        }
+    }
+
+    /**
+     * @param columns the number of stars per line, or 0 to keep them all on a single row
+     */
+    void setColumns(int columns) {
+        if (mColumns != columns) {
+            mColumns = columns;
+            updateBounds();
+        }
+    }
+
+    /**
+     * Only draws the first {@code limit} stars, the last one clipped to the fractional part.
+     */
+    void setFillLimit(float limit) {
+        if (mFillLimit != limit) {
+            mFillLimit = limit;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Skips the first {@code start} stars, the next one clipped to what lies past the fractional
+     * part: the counterpart of {@link #setFillLimit(float)}.
+     */
+    void setFillStart(float start) {
+        if (mFillStart != start) {
+            mFillStart = start;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Whether {@link #draw(Canvas)} starts with the shadows of the stars (default: true).
+     */
+    void setDrawShadows(boolean drawShadows) {
+        if (isDrawingShadows != drawShadows) {
+            isDrawingShadows = drawShadows;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Computes the bounds of the star at {@code index}, in the coordinates the row is drawn in.
+     * The bounds are empty while the row holds no star.
+     */
+    void getStarBounds(int index, Rect outRect) {
+        final int columns = getColumns();
+        if (columns <= 0) {
+            outRect.setEmpty();
+            return;
+        }
+
+        updateOffsets();
+        final int size = mDrawable.getIntrinsicWidth();
+        final int left = mOffsetX + Math.round(StarLayout.starLeft(index, columns, size, mDivider));
+        final int top = mOffsetY + Math.round(StarLayout.starTop(index, columns, size, mDivider));
+        outRect.set(left, top, left + size, top + size);
+    }
+
+    private int getColumns() {
+        return mColumns > 0 ? Math.min(mColumns, mCount) : mCount;
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        updateBounds();
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return StarLayout.rowWidth(getColumns(), mDrawable.getIntrinsicWidth(), mDivider);
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return StarLayout.rowWidth(StarLayout.lines(mCount, getColumns()), mDrawable.getIntrinsicHeight(), mDivider);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if(!StarMetrics.sEnabled) {
+            drawRow(canvas);
+            return;
+        }
+
+        final long start = StarMetrics.begin("StarRowDrawable#draw");
+        try {
+            drawRow(canvas);
+        } finally {
+            StarMetrics.end(StarMetrics.ROW_DRAW, start);
+        }
+    }
+
+    /**
+     * Draws the shadows of the stars alone, for compositions which draw other stars beneath
+     * this row and turned {@link #setDrawShadows(boolean)} off.
+     */
+    void drawShadows(Canvas canvas) {
+        if (!mDrawable.hasShadow()) return;
+
+        updateOffsets();
+        if (canvas.getClipBounds(mClipBounds)) drawStars(canvas, true);
+    }
+
+    private void drawRow(Canvas canvas) {
+        updateOffsets();
+        if (!canvas.getClipBounds(mClipBounds)) return;
+
+        // shadows go first, so that none of them paints over a neighbouring star
+        if (isDrawingShadows && mDrawable.hasShadow()) drawStars(canvas, true);
+        drawStars(canvas, false);
+    }
+
+    private void updateOffsets() {
+        if (isDirty) {
+            final Rect bounds = getBounds();
+            mOffsetX = StarLayout.gravityLeft(mGravity, getIntrinsicWidth(), bounds.left, bounds.right);
+            mOffsetY = StarLayout.gravityTop(mGravity, getIntrinsicHeight(), bounds.top, bounds.bottom);
+            isDirty = false;
+        }
+    }
+
+    private void drawStars(Canvas canvas, boolean shadows) {
+
+        final int size = mDrawable.getIntrinsicWidth();
+        final int columns = getColumns();
+        final int first = mFillStart > 0 ? (int) mFillStart : 0;
+        final int count = mFillLimit < mCount ? (int) Math.ceil(mFillLimit) : mCount;
+        final int pitch = size + mDivider;
+        // shadows reach past the star bounds
+        final int extent = shadows ? mDrawable.getShadowExtent() : 0;
+
+        canvas.save();
+
+        int x = 0, y = 0;
+
+        for (int i = first; i < count; i++) {
+            final float from = Math.max(0, mFillStart - i);
+            final float to = Math.min(1, mFillLimit - i);
+            if (from >= to) continue;
+
+            final int left = (i % columns) * pitch;
+            final int top = (i / columns) * pitch;
+
+            // culled against the clip, in canvas coordinates
+            if (mOffsetX + left - extent >= mClipBounds.right || mOffsetX + left + size + extent <= mClipBounds.left
+                    || mOffsetY + top - extent >= mClipBounds.bottom || mOffsetY + top + size + extent <= mClipBounds.top) {
+                continue;
+            }
+
+            canvas.translate(mOffsetX + left - x, mOffsetY + top - y);
+            x = mOffsetX + left;
+            y = mOffsetY + top;
+
+            mDrawable.setShaderIndex(i);
+
+            if (from > 0 || to < 1) {
+                canvas.save();
+                // only the partial edges get clipped, a shadow still spills past the others
+                canvas.clipRect(from > 0 ? size * from : -extent, -extent,
+                        to < 1 ? size * to : size + extent, size + extent);
+                drawStar(canvas, shadows);
+                canvas.restore();
+            } else {
+                drawStar(canvas, shadows);
+            }
+        }
+
+        canvas.restore();
+    }
+
+    private void drawStar(Canvas canvas, boolean shadow) {
+        if (shadow) mDrawable.drawShadow(canvas);
+        else mDrawable.draw(canvas);
+    }
+
+    private void updateBounds() {
+        final Rect bounds = getBounds();
+        // the intrinsic size may have changed along with the bounds, or without them
+        isDirty = true;
+        int size = mSize;
+
+        if (size <= 0) {
+            final int columns = getColumns();
+            size = StarLayout.fitStarSize(bounds.width(), bounds.height(),
+                    columns, StarLayout.lines(mCount, columns), mDivider);
+        }
+
+        mDrawable.setSize(size);
+        mDrawable.setBounds(bounds.left, bounds.top, bounds.left + size, bounds.top + size);
+        invalidateSelf();
+    }
+}
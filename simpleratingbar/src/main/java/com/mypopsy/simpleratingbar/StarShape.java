@@ -0,0 +1,116 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Matrix;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * Outline drawn for each star. Shapes are compiled once per geometry into {@link StarPathCache}
+ * and shared, so a custom shape costs no more per frame than the built-in star.
+ *
+ * Implementations must be immutable, and override {@link #equals(Object)} and
+ * {@link #hashCode()} whenever two distinct instances describe the same outline.
+ */
+public abstract class StarShape {
+
+    public static final StarShape STAR = new StarShape() {
+        @Override
+        public void build(Path path, float size, float inset) {
+            StarGeometry.build(path, size, inset);
+        }
+    };
+
+    public static final StarShape HEART = new StarShape() {
+        @Override
+        public void build(Path path, float size, float inset) {
+            path.reset();
+            path.moveTo(.5f, .95f);
+            path.cubicTo(.38f, .84f, 0f, .6f, 0f, .32f);
+            path.cubicTo(0f, .15f, .13f, .05f, .27f, .05f);
+            path.cubicTo(.38f, .05f, .46f, .11f, .5f, .2f);
+            path.cubicTo(.54f, .11f, .62f, .05f, .73f, .05f);
+            path.cubicTo(.87f, .05f, 1f, .15f, 1f, .32f);
+            path.cubicTo(1f, .6f, .62f, .84f, .5f, .95f);
+            path.close();
+            fitUnit(path, size, inset);
+        }
+    };
+
+    public static final StarShape CIRCLE = new StarShape() {
+        @Override
+        public void build(Path path, float size, float inset) {
+            path.reset();
+            path.addCircle(size / 2f, size / 2f, Math.max(0, size / 2f - inset), Path.Direction.CW);
+        }
+    };
+
+    /**
+     * Resets {@code path} to this shape fitted into a {@code size} x {@code size} square, its
+     * outline pulled in by {@code inset} pixels so that stroked or rounded edges stay inside.
+     */
+    public abstract void build(Path path, float size, float inset);
+
+    /**
+     * Parses SVG path data (the {@code d} attribute, also used by vector drawables). The outline
+     * is scaled to fit the star bounds, preserving its aspect ratio.
+     *
+     * @throws IllegalArgumentException if {@code pathData} is malformed
+     */
+    public static StarShape fromPathData(String pathData) {
+        return new PathDataShape(pathData);
+    }
+
+    /**
+     * @return the built-in shape stored by the {@code srb_starShape} enum attribute
+     */
+    static StarShape fromAttribute(int value) {
+        switch (value) {
+            case 1: return HEART;
+            case 2: return CIRCLE;
+            default: return STAR;
+        }
+    }
+
+    /**
+     * Scales a path laid out in the unit square to the given size and inset.
+     */
+    static void fitUnit(Path path, float size, float inset) {
+        final Matrix matrix = new Matrix();
+        final float scale = Math.max(0, size - 2 * inset);
+        matrix.setScale(scale, scale);
+        matrix.postTranslate(inset, inset);
+        path.transform(matrix);
+    }
+
+    private static final class PathDataShape extends StarShape {
+
+        private final String mPathData;
+        private final Path mPath;
+        private final RectF mBounds = new RectF();
+
+        PathDataShape(String pathData) {
+            mPathData = pathData;
+            mPath = PathDataParser.parse(pathData);
+            mPath.computeBounds(mBounds, true);
+        }
+
+        @Override
+        public void build(Path path, float size, float inset) {
+            final Matrix matrix = new Matrix();
+            matrix.setRectToRect(mBounds, new RectF(inset, inset, size - inset, size - inset),
+                    Matrix.ScaleToFit.CENTER);
+            path.reset();
+            path.addPath(mPath, matrix);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof PathDataShape && mPathData.equals(((PathDataShape) o).mPathData));
+        }
+
+        @Override
+        public int hashCode() {
+            return mPathData.hashCode();
+        }
+    }
+}
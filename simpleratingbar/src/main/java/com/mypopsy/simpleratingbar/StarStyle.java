@@ -0,0 +1,361 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Color;
+import android.graphics.CornerPathEffect;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Shader;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of star styling attributes which can be applied to any number of
+ * {@link StarIndicator} or {@link StarRatingBar} instances. Paints are built once per style and
+ * shared by every star using it, geometry being shared through {@link StarPathCache}.
+ */
+public final class StarStyle {
+
+    public static final StarStyle DEFAULT = new Builder().build();
+
+    /** Filled stars use the fill color. */
+    public static final int FILL_SOLID = 0;
+    /** Filled stars share one color, picked along the fill colors by the rating. */
+    public static final int FILL_RAMP = 1;
+    /** The fill colors spread as a gradient across all stars, in order, even when wrapped. */
+    public static final int FILL_GRADIENT = 2;
+
+    private final int mFillColor;
+    private final int mBackgroundColor;
+    private final int mBorderColor;
+    private final int mBorderWidth;
+    private final float mCornerRadius;
+    private final int mPadding;
+    private final int mSize;
+    private final StarShape mShape;
+    private final float mShadowRadius;
+    private final int mShadowDx;
+    private final int mShadowDy;
+    private final int mShadowColor;
+    private final int mFillMode;
+    private final int[] mFillColors;
+
+    // shared paints, never to be mutated
+    final Paint fillPaint;
+    final Paint backgroundPaint;
+    final Paint borderPaint;
+    final Paint shadowPaint;
+
+    private StarStyle(Builder builder) {
+        mFillColor = builder.fillColor;
+        mBackgroundColor = builder.backgroundColor;
+        mBorderColor = builder.borderColor;
+        mBorderWidth = builder.borderWidth;
+        mCornerRadius = builder.cornerRadius;
+        mPadding = builder.padding;
+        mSize = builder.size;
+        mShape = builder.shape;
+        mShadowRadius = builder.shadowRadius;
+        mShadowDx = builder.shadowDx;
+        mShadowDy = builder.shadowDy;
+        mShadowColor = builder.shadowColor;
+        mFillMode = builder.fillColors != null ? builder.fillMode : FILL_SOLID;
+        mFillColors = builder.fillColors;
+
+        final CornerPathEffect cornerPathEffect = new CornerPathEffect(mCornerRadius);
+
+        fillPaint = StarDrawable.newFillPaint();
+        fillPaint.setColor(mFillColor);
+        fillPaint.setPathEffect(cornerPathEffect);
+
+        backgroundPaint = StarDrawable.newFillPaint();
+        backgroundPaint.setColor(mBackgroundColor);
+        backgroundPaint.setPathEffect(cornerPathEffect);
+
+        borderPaint = StarDrawable.newBorderPaint();
+        borderPaint.setColor(mBorderColor);
+        borderPaint.setStrokeWidth(mBorderWidth);
+        borderPaint.setPathEffect(cornerPathEffect);
+
+        shadowPaint = StarDrawable.newShadowPaint();
+        shadowPaint.setColor(mShadowColor);
+    }
+
+    public int getFillColor() {
+        return mFillColor;
+    }
+
+    public int getBackgroundColor() {
+        return mBackgroundColor;
+    }
+
+    public int getBorderColor() {
+        return mBorderColor;
+    }
+
+    public int getBorderWidth() {
+        return mBorderWidth;
+    }
+
+    public float getCornerRadius() {
+        return mCornerRadius;
+    }
+
+    public int getPadding() {
+        return mPadding;
+    }
+
+    /**
+     * @return the star size in pixels, or 0 if stars are sized to fit the available width.
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    public StarShape getShape() {
+        return mShape;
+    }
+
+    public float getShadowRadius() {
+        return mShadowRadius;
+    }
+
+    public int getShadowDx() {
+        return mShadowDx;
+    }
+
+    public int getShadowDy() {
+        return mShadowDy;
+    }
+
+    public int getShadowColor() {
+        return mShadowColor;
+    }
+
+    /**
+     * @return one of {@link #FILL_SOLID}, {@link #FILL_RAMP} or {@link #FILL_GRADIENT}
+     */
+    public int getFillMode() {
+        return mFillMode;
+    }
+
+    /**
+     * @return the colors used by the ramp and gradient fill modes, or null
+     */
+    public int[] getFillColors() {
+        return mFillColors != null ? mFillColors.clone() : null;
+    }
+
+    /**
+     * @return the color at {@code fraction} (0 to 1) along the evenly spaced fill colors
+     */
+    int getFillColorAt(float fraction) {
+        final int[] colors = mFillColors;
+        if (colors == null) return mFillColor;
+        if (colors.length == 1 || fraction <= 0) return colors[0];
+        if (fraction >= 1) return colors[colors.length - 1];
+
+        final float position = fraction * (colors.length - 1);
+        final int index = (int) position;
+        return blend(colors[index], colors[index + 1], position - index);
+    }
+
+    /**
+     * @return a gradient spanning {@code width}, seen from a star {@code offset} pixels into it
+     */
+    Shader createFillShader(int width, float offset) {
+        if (mFillColors.length == 1) {
+            return new LinearGradient(-offset, 0, width - offset, 0, mFillColors[0], mFillColors[0], Shader.TileMode.CLAMP);
+        }
+        return new LinearGradient(-offset, 0, width - offset, 0, mFillColors, null, Shader.TileMode.CLAMP);
+    }
+
+    private static int blend(int from, int to, float fraction) {
+        final float inverse = 1 - fraction;
+        return Color.argb(
+                Math.round(Color.alpha(from) * inverse + Color.alpha(to) * fraction),
+                Math.round(Color.red(from) * inverse + Color.red(to) * fraction),
+                Math.round(Color.green(from) * inverse + Color.green(to) * fraction),
+                Math.round(Color.blue(from) * inverse + Color.blue(to) * fraction));
+    }
+
+    boolean hasShadow() {
+        return mShadowRadius > 0 && Color.alpha(mShadowColor) != 0;
+    }
+
+    /**
+     * Builds the star geometry of this style at {@code starSize} ahead of time, along with its
+     * masks if {@code rasterized}, so that the first frame only hits the caches.
+     * Safe to call from any thread.
+     */
+    public void prewarm(int starSize, boolean rasterized) {
+        if (starSize <= 0) return;
+
+        final StarKey key = new StarKey(mShape, starSize, mBorderWidth, mCornerRadius);
+        StarPathCache.get(key);
+
+        if (rasterized) {
+            StarMaskCache.getFill(key);
+            if (mBorderWidth > 0) StarMaskCache.getBorder(key);
+        }
+
+        if (hasShadow()) StarMaskCache.getShadow(key, mShadowRadius);
+    }
+
+    public Builder buildUpon() {
+        return new Builder(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StarStyle)) return false;
+
+        final StarStyle style = (StarStyle) o;
+        return mFillColor == style.mFillColor
+                && mBackgroundColor == style.mBackgroundColor
+                && mBorderColor == style.mBorderColor
+                && mBorderWidth == style.mBorderWidth
+                && Float.compare(mCornerRadius, style.mCornerRadius) == 0
+                && mPadding == style.mPadding
+                && mSize == style.mSize
+                && mShape.equals(style.mShape)
+                && Float.compare(mShadowRadius, style.mShadowRadius) == 0
+                && mShadowDx == style.mShadowDx
+                && mShadowDy == style.mShadowDy
+                && mShadowColor == style.mShadowColor
+                && mFillMode == style.mFillMode
+                && Arrays.equals(mFillColors, style.mFillColors);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mFillColor;
+        result = 31 * result + mBackgroundColor;
+        result = 31 * result + mBorderColor;
+        result = 31 * result + mBorderWidth;
+        result = 31 * result + Float.floatToIntBits(mCornerRadius);
+        result = 31 * result + mPadding;
+        result = 31 * result + mSize;
+        result = 31 * result + mShape.hashCode();
+        result = 31 * result + Float.floatToIntBits(mShadowRadius);
+        result = 31 * result + mShadowDx;
+        result = 31 * result + mShadowDy;
+        result = 31 * result + mShadowColor;
+        result = 31 * result + mFillMode;
+        result = 31 * result + Arrays.hashCode(mFillColors);
+        return result;
+    }
+
+    public static final class Builder {
+
+        private int fillColor = StarDrawable.DEFAULT_FILL_COLOR;
+        private int backgroundColor = Color.LTGRAY;
+        private int borderColor;
+        private int borderWidth;
+        private float cornerRadius;
+        private int padding;
+        private int size;
+        private StarShape shape = StarShape.STAR;
+        private float shadowRadius;
+        private int shadowDx;
+        private int shadowDy;
+        private int shadowColor;
+        private int fillMode = FILL_SOLID;
+        private int[] fillColors;
+
+        public Builder() {}
+
+        private Builder(StarStyle style) {
+            fillColor = style.mFillColor;
+            backgroundColor = style.mBackgroundColor;
+            borderColor = style.mBorderColor;
+            borderWidth = style.mBorderWidth;
+            cornerRadius = style.mCornerRadius;
+            padding = style.mPadding;
+            size = style.mSize;
+            shape = style.mShape;
+            shadowRadius = style.mShadowRadius;
+            shadowDx = style.mShadowDx;
+            shadowDy = style.mShadowDy;
+            shadowColor = style.mShadowColor;
+            fillMode = style.mFillMode;
+            fillColors = style.mFillColors;
+        }
+
+        public Builder setFillColor(int color) {
+            fillColor = color;
+            return this;
+        }
+
+        public Builder setBackgroundColor(int color) {
+            backgroundColor = color;
+            return this;
+        }
+
+        public Builder setBorderColor(int color) {
+            borderColor = color;
+            return this;
+        }
+
+        public Builder setBorderWidth(int pixel) {
+            borderWidth = pixel;
+            return this;
+        }
+
+        public Builder setCornerRadius(float radius) {
+            cornerRadius = radius;
+            return this;
+        }
+
+        public Builder setPadding(int pixel) {
+            padding = pixel;
+            return this;
+        }
+
+        /**
+         * @param pixel the star size, or 0 to fit the available width.
+         */
+        public Builder setSize(int pixel) {
+            size = pixel;
+            return this;
+        }
+
+        public Builder setShape(StarShape shape) {
+            if (shape == null) throw new IllegalArgumentException("shape == null");
+            this.shape = shape;
+            return this;
+        }
+
+        /**
+         * @param mode one of {@link #FILL_SOLID}, {@link #FILL_RAMP} or {@link #FILL_GRADIENT}
+         * @param colors the colors to ramp between or spread across the row, at least one
+         *               unless {@code mode} is {@link #FILL_SOLID}
+         */
+        public Builder setFillMode(int mode, int... colors) {
+            if (mode != FILL_SOLID && (colors == null || colors.length == 0)) {
+                throw new IllegalArgumentException("fill colors required");
+            }
+            fillMode = mode;
+            fillColors = mode != FILL_SOLID ? colors.clone() : null;
+            return this;
+        }
+
+        /**
+         * Draws a shadow beneath filled stars, or a glow when both offsets are 0. The blurred
+         * silhouette is computed once per geometry and radius, then only tinted when drawn.
+         *
+         * @param radius the blur radius, or 0 for no shadow
+         */
+        public Builder setShadow(float radius, int dx, int dy, int color) {
+            shadowRadius = radius;
+            shadowDx = dx;
+            shadowDy = dy;
+            shadowColor = color;
+            return this;
+        }
+
+        public StarStyle build() {
+            return new StarStyle(this);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.mypopsy.simpleratingbar;
+
+import android.content.Context;
+import android.support.v4.util.Pools;
+import android.view.View;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Bounded pool of star views shared by every {@link StarRatingBar} of a given context, so that
+ * changing the number of stars recycles views instead of inflating new ones.
+ *
+ * Pools are only weakly referenced from here: pooled views hold their context, and a pool lives
+ * as long as one of the rating bars using it.
+ */
+final class StarViewPool {
+
+    private static final int MAX_POOL_SIZE = 32;
+
+    private static final Map<Context, WeakReference<StarViewPool>> sPools = new WeakHashMap<Context, WeakReference<StarViewPool>>();
+
+    private final Pools.Pool<View> mPool = new Pools.SynchronizedPool<View>(MAX_POOL_SIZE);
+
+    private StarViewPool() {}
+
+    static StarViewPool get(Context context) {
+        synchronized (sPools) {
+            final WeakReference<StarViewPool> ref = sPools.get(context);
+            StarViewPool pool = ref != null ? ref.get() : null;
+            if (pool == null) {
+                pool = new StarViewPool();
+                sPools.put(context, new WeakReference<StarViewPool>(pool));
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * @return a detached star view, or null if the pool is empty.
+     */
+    View acquire() {
+        return mPool.acquire();
+    }
+
+    /**
+     * @return false if the pool is full and {@code star} should be dropped.
+     */
+    boolean release(View star) {
+        return mPool.release(star);
+    }
+}
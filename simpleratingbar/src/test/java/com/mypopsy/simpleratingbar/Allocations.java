@@ -0,0 +1,43 @@
+package com.mypopsy.simpleratingbar;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the heap allocated by the current thread, through the HotSpot thread MXBean.
+ */
+final class Allocations {
+
+    private static final int WARMUP_RUNS = 20;
+
+    private static final com.sun.management.ThreadMXBean sThreadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Allocations() {}
+
+    static boolean isSupported() {
+        return sThreadBean.isThreadAllocatedMemorySupported() && sThreadBean.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * @return the bytes allocated by each run of {@code task}, once warmed up. Allocations made
+     * by the probe itself are measured separately and subtracted.
+     */
+    static long perRun(Runnable task, int runs) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            task.run();
+        }
+
+        final long threadId = Thread.currentThread().getId();
+
+        final long start = sThreadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < runs; i++) {
+            task.run();
+        }
+        final long total = sThreadBean.getThreadAllocatedBytes(threadId) - start;
+
+        final long probeStart = sThreadBean.getThreadAllocatedBytes(threadId);
+        final long probe = sThreadBean.getThreadAllocatedBytes(threadId) - probeStart;
+
+        return Math.max(0, total - probe) / runs;
+    }
+}
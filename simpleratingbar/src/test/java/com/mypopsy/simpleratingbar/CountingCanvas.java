@@ -0,0 +1,133 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+
+/**
+ * Canvas recording the operations issued by a frame instead of rasterizing them. Nothing is
+ * forwarded to the framework canvas, so that measured allocations are only the caller's own.
+ */
+class CountingCanvas extends Canvas {
+
+    private final int mWidth, mHeight;
+
+    private int mDrawCount;
+    private int mOperationCount;
+    private int mSaveCount;
+    private Path mLastPath;
+
+    CountingCanvas(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+    }
+
+    /**
+     * @return the number of draw calls (paths and bitmaps) since the last {@link #reset()}
+     */
+    int getDrawCount() {
+        return mDrawCount;
+    }
+
+    /**
+     * @return the number of draw, save, restore, transform and clip calls since the last
+     * {@link #reset()}
+     */
+    int getOperationCount() {
+        return mOperationCount;
+    }
+
+    Path getLastPath() {
+        return mLastPath;
+    }
+
+    void reset() {
+        mDrawCount = 0;
+        mOperationCount = 0;
+        mLastPath = null;
+    }
+
+    @Override
+    public int getWidth() {
+        return mWidth;
+    }
+
+    @Override
+    public int getHeight() {
+        return mHeight;
+    }
+
+    @Override
+    public boolean getClipBounds(Rect bounds) {
+        bounds.set(0, 0, mWidth, mHeight);
+        return true;
+    }
+
+    @Override
+    public int save() {
+        mOperationCount++;
+        return ++mSaveCount;
+    }
+
+    @Override
+    public int save(int saveFlags) {
+        return save();
+    }
+
+    @Override
+    public void restore() {
+        mOperationCount++;
+        mSaveCount--;
+    }
+
+    @Override
+    public int getSaveCount() {
+        return mSaveCount;
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        mOperationCount++;
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        mOperationCount++;
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(int left, int top, int right, int bottom) {
+        mOperationCount++;
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(Rect rect) {
+        mOperationCount++;
+        return true;
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        mLastPath = path;
+        onDraw();
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        onDraw();
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        onDraw();
+    }
+
+    private void onDraw() {
+        mDrawCount++;
+        mOperationCount++;
+    }
+}
@@ -0,0 +1,215 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static android.view.View.MeasureSpec.AT_MOST;
+import static android.view.View.MeasureSpec.makeMeasureSpec;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Per-frame budgets of the hot paths: canvas operations issued by a frame, and bytes allocated
+ * once warmed up. Budgets are the current counts, so any change raising one of them fails here
+ * and has to be justified by updating the budget.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class FrameBudgetTest {
+
+    private static final int RUNS = 100;
+    private static final int MAX_SIZE = 1000;
+
+    private static final StarStyle STYLE = new StarStyle.Builder().setSize(40).setPadding(4).build();
+    private static final StarStyle GRADIENT_STYLE = new StarStyle.Builder().setSize(40).setPadding(4)
+            .setFillMode(StarStyle.FILL_GRADIENT, 0xFFFF0000, 0xFF00FF00, 0xFF0000FF).build();
+
+    private final CountingCanvas mCanvas = new CountingCanvas(MAX_SIZE, MAX_SIZE);
+
+    @Before
+    public void setUp() {
+        StarMetrics.setEnabled(false);
+    }
+
+    @Test
+    public void starDrawableDraw() {
+        final StarDrawable star = newStar(false);
+        assertFrame(drawing(star), 1, 1);
+    }
+
+    @Test
+    public void rasterizedStarDrawableDraw() {
+        final StarDrawable star = newStar(true);
+        assertFrame(drawing(star), 1, 1);
+    }
+
+    @Test
+    public void rowDrawableDraw() {
+        final StarRowDrawable row = newRow(5);
+        // save, restore, and one translation per star
+        assertFrame(drawing(row), 5, 12);
+    }
+
+    @Test
+    public void partialRowDrawableDraw() {
+        final StarRowDrawable row = newRow(5);
+        row.setFillLimit(2.5f);
+        // the last star gets clipped within its own save/restore
+        assertFrame(drawing(row), 3, 11);
+    }
+
+    @Test
+    public void indicatorDraw() {
+        final StarIndicator indicator = newIndicator();
+        assertFrame(drawing(indicator), 8, 23);
+    }
+
+    /**
+     * Each star switches to its own prebuilt gradient shader.
+     */
+    @Test
+    public void gradientIndicatorDraw() {
+        final StarIndicator indicator = newIndicator(GRADIENT_STYLE);
+        assertFrame(drawing(indicator), 8, 23);
+    }
+
+    @Test
+    public void splitIndicatorDraw() {
+        final StarIndicator indicator = newIndicator();
+        indicator.setSplitStars(true);
+        assertFrame(drawing(indicator), 6, 22);
+    }
+
+    @Test
+    public void indicatorMeasure() {
+        final StarIndicator indicator = newIndicator();
+        assertAllocationFree(new Runnable() {
+            @Override
+            public void run() {
+                indicator.onMeasure(makeMeasureSpec(MAX_SIZE, AT_MOST), makeMeasureSpec(MAX_SIZE, AT_MOST));
+            }
+        });
+    }
+
+    @Test
+    public void flatRatingBarDraw() {
+        final StarRatingBar bar = newFlatRatingBar();
+        assertFrame(drawing(bar), 6, 24);
+    }
+
+    /**
+     * Child star views are laid out by the framework, only the flat mode is entirely ours.
+     */
+    @Test
+    public void flatRatingBarLayout() {
+        final StarRatingBar bar = newFlatRatingBar();
+        assertAllocationFree(new Runnable() {
+            @Override
+            public void run() {
+                bar.onLayout(false, 0, 0, bar.getMeasuredWidth(), bar.getMeasuredHeight());
+            }
+        });
+    }
+
+    private void assertFrame(Runnable frame, int drawBudget, int operationBudget) {
+        mCanvas.reset();
+        frame.run();
+
+        assertTrue("draw calls raised to " + mCanvas.getDrawCount() + ", budget is " + drawBudget,
+                mCanvas.getDrawCount() <= drawBudget);
+        assertTrue("canvas operations raised to " + mCanvas.getOperationCount() + ", budget is " + operationBudget,
+                mCanvas.getOperationCount() <= operationBudget);
+        assertEquals("unbalanced save/restore", 0, mCanvas.getSaveCount());
+
+        assertAllocationFree(frame);
+    }
+
+    private static void assertAllocationFree(Runnable frame) {
+        if (!Allocations.isSupported()) return;
+        assertEquals("bytes allocated per frame", 0, Allocations.perRun(frame, RUNS));
+    }
+
+    private Runnable drawing(final Drawable drawable) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                drawable.draw(mCanvas);
+            }
+        };
+    }
+
+    private Runnable drawing(final StarIndicator indicator) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                indicator.onDraw(mCanvas);
+            }
+        };
+    }
+
+    private Runnable drawing(final StarRatingBar bar) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                bar.onDraw(mCanvas);
+            }
+        };
+    }
+
+    private static StarDrawable newStar(boolean rasterized) {
+        final StarDrawable star = new StarDrawable();
+        star.setStyle(STYLE, true);
+        star.setRasterized(rasterized);
+        star.setSize(STYLE.getSize());
+        star.setBounds(0, 0, STYLE.getSize(), STYLE.getSize());
+        return star;
+    }
+
+    private static StarRowDrawable newRow(int count) {
+        final StarRowDrawable row = new StarRowDrawable(newStar(false));
+        row.setCount(count);
+        row.setSize(STYLE.getSize());
+        row.setDivider(STYLE.getPadding());
+        row.setBounds(0, 0, row.getIntrinsicWidth(), row.getIntrinsicHeight());
+        return row;
+    }
+
+    private static StarIndicator newIndicator() {
+        return newIndicator(STYLE);
+    }
+
+    private static StarIndicator newIndicator(StarStyle style) {
+        final StarIndicator indicator = new StarIndicator(RuntimeEnvironment.application);
+        indicator.setNumStars(5);
+        indicator.setStarStyle(style);
+        indicator.setRating(2.5f);
+        measureAndLayout(indicator);
+        return indicator;
+    }
+
+    private static StarRatingBar newFlatRatingBar() {
+        final AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.srb_flat, "true")
+                .build();
+        final StarRatingBar bar = new StarRatingBar(RuntimeEnvironment.application, attrs);
+        bar.setNumStars(5);
+        bar.setStarStyle(STYLE);
+        bar.setRating(2.5f);
+        measureAndLayout(bar);
+        return bar;
+    }
+
+    private static void measureAndLayout(View view) {
+        view.measure(makeMeasureSpec(MAX_SIZE, AT_MOST), makeMeasureSpec(MAX_SIZE, AT_MOST));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+}
@@ -0,0 +1,51 @@
+package com.mypopsy.simpleratingbar;
+
+import android.graphics.Path;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class StarDrawableTest {
+
+    private static final int RELAYOUTS = 5000;
+
+    private final CountingCanvas mCanvas = new CountingCanvas(1000, 1000);
+
+    @Test
+    public void vertexCountIsStableAcrossRelayouts() {
+        final StarDrawable star = new StarDrawable();
+        star.setSize(40);
+        star.setBounds(0, 0, 40, 40);
+        star.draw(mCanvas);
+
+        final Path path = mCanvas.getLastPath();
+        final int vertices = shadowOf(path).getPoints().size();
+
+        for (int i = 0; i < RELAYOUTS; i++) {
+            final int size = 20 + i % 20;
+            star.setSize(size);
+            star.setBounds(i % 7, i % 3, i % 7 + size, i % 3 + size);
+
+            mCanvas.reset();
+            star.draw(mCanvas);
+            assertEquals(vertices, shadowOf(mCanvas.getLastPath()).getPoints().size());
+        }
+
+        // back to the original geometry: same shared outline, left untouched
+        star.setSize(40);
+        star.setBounds(0, 0, 40, 40);
+        mCanvas.reset();
+        star.draw(mCanvas);
+
+        assertSame(path, mCanvas.getLastPath());
+        assertEquals(vertices, shadowOf(path).getPoints().size());
+    }
+}
@@ -0,0 +1,43 @@
+package com.mypopsy.simpleratingbar;
+
+import android.util.AttributeSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static android.view.View.MeasureSpec.AT_MOST;
+import static android.view.View.MeasureSpec.makeMeasureSpec;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class StarIndicatorTest {
+
+    private final CountingCanvas mCanvas = new CountingCanvas(1000, 1000);
+
+    @Test
+    public void inflatesWithRating() {
+        final AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(android.R.attr.numStars, "5")
+                .addAttribute(android.R.attr.rating, "3")
+                .build();
+        final StarIndicator indicator = new StarIndicator(RuntimeEnvironment.application, attrs);
+        assertEquals(3f, indicator.getRating(), 0f);
+
+        // rating changes before the first layout
+        indicator.setRating(1.5f);
+
+        indicator.measure(makeMeasureSpec(1000, AT_MOST), makeMeasureSpec(1000, AT_MOST));
+        indicator.layout(0, 0, indicator.getMeasuredWidth(), indicator.getMeasuredHeight());
+        indicator.onDraw(mCanvas);
+
+        // and after it
+        indicator.setRating(4f);
+        indicator.onDraw(mCanvas);
+        assertEquals(4f, indicator.getRating(), 0f);
+    }
+}
@@ -0,0 +1,69 @@
+package com.mypopsy.simpleratingbar;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class StarRatingDrawableTest {
+
+    private static final StarStyle STYLE = new StarStyle.Builder().setSize(40).setPadding(4).build();
+
+    private final CountingCanvas mCanvas = new CountingCanvas(1000, 1000);
+
+    @Test
+    public void sharedStateChangesReachEveryDrawable() {
+        final StarRatingDrawable first = new StarRatingDrawable(STYLE, 5);
+        final StarRatingDrawable second = newDrawable(first);
+
+        first.setNumStars(3);
+        first.setAlpha(0x80);
+
+        assertEquals(3, second.getNumStars());
+        assertEquals(0x80, second.getAlpha());
+        assertEquals(first.getIntrinsicWidth(), second.getIntrinsicWidth());
+        // one outline star per star, nothing filled
+        assertEquals(3, drawCount(second));
+    }
+
+    @Test
+    public void mutatedDrawableKeepsItsState() {
+        final StarRatingDrawable first = new StarRatingDrawable(STYLE, 5);
+        final StarRatingDrawable second = newDrawable(first);
+        second.mutate();
+
+        first.setNumStars(3);
+        first.setAlpha(0x80);
+
+        assertEquals(5, second.getNumStars());
+        assertEquals(0xFF, second.getAlpha());
+        assertEquals(5, drawCount(second));
+        assertEquals(3, drawCount(first));
+    }
+
+    @Test
+    public void ratingBelongsToEachDrawable() {
+        final StarRatingDrawable first = new StarRatingDrawable(STYLE, 5);
+        final StarRatingDrawable second = newDrawable(first);
+
+        first.setRating(2.5f);
+
+        assertEquals(2.5f, first.getRating(), 0f);
+        assertEquals(0f, second.getRating(), 0f);
+    }
+
+    private static StarRatingDrawable newDrawable(StarRatingDrawable drawable) {
+        return (StarRatingDrawable) drawable.getConstantState().newDrawable();
+    }
+
+    private int drawCount(StarRatingDrawable drawable) {
+        drawable.setBounds(0, 0, drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight());
+        mCanvas.reset();
+        drawable.draw(mCanvas);
+        return mCanvas.getDrawCount();
+    }
+}
@@ -0,0 +1,26 @@
+package com.mypopsy.simpleratingbar;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class StarShapeTest {
+
+    @Test
+    public void parsesPathData() {
+        StarShape.fromPathData("M0 0 L1 1 Z M2 2 l1 1 1 1 z");
+    }
+
+    @Test(expected = IllegalArgumentException.class, timeout = 1000)
+    public void rejectsNumberAfterClosePath() {
+        StarShape.fromPathData("M0 0 L1 1 Z 5");
+    }
+
+    @Test(expected = IllegalArgumentException.class, timeout = 1000)
+    public void rejectsMissingCommand() {
+        StarShape.fromPathData("0 0");
+    }
+}